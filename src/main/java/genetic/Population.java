@@ -2,12 +2,16 @@ package genetic;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import util.RandomSource;
 
 public class Population<T extends Individual<T>> {
 	public static final int MIN_POP_SIZE = 2;
@@ -23,29 +27,69 @@ public class Population<T extends Individual<T>> {
 	 */
 	public int populationSize;
 	
+	/**
+	 * If set, the fitness of the individuals is calculated in parallel on this pool. Their calculateFitness()
+	 * must then be safe to call from several threads at once.
+	 */
+	private ForkJoinPool pool;
+	
+	/**
+	 * Whether to print the best and worst fitness of each generation
+	 */
+	private boolean verbose = true;
+	
+	/**
+	 * Used to select the parents, or null to use the generator of the current thread
+	 */
+	private RandomSource random;
+	
 	public Population(int num, IndividualFactory<T> factory) {
 		if(num < MIN_POP_SIZE)
 			throw new IllegalArgumentException("A population must have at least "+MIN_POP_SIZE+" individuals");
 		populationSize = num;
-		population = new HashSet<T>();
+		population = new LinkedHashSet<T>();
 		for(T indiv : factory.generate(populationSize))
 			population.add(indiv);
 	}
 	
+	/**
+	 * Calculate fitness in parallel on the given pool, or sequentially if it is null.
+	 * @param pool
+	 */
+	public void setPool(ForkJoinPool pool) {
+		this.pool = pool;
+	}
+	
+	public void setVerbose(boolean verbose) {
+		this.verbose = verbose;
+	}
+	
+	/**
+	 * Select the parents with the given source of randomness, or with the generator of the current thread if
+	 * it is null.
+	 * @param random
+	 */
+	public void setRandom(RandomSource random) {
+		this.random = random;
+	}
+	
 	public void newGeneration() {
 		List<T> results = new ArrayList<T>();
 		for(T indiv : population) {
 			indiv.clearFitness();
 			results.add(indiv);
 		}
+		if(pool != null)
+			pool.invoke(new FitnessTask<T>(results, 0, results.size()));
 		Collections.sort(results);
-		System.out.println("best " + results.get(0).fitness() + " worst " + results.get(results.size()-1).fitness());
+		if(verbose)
+			System.out.println("best " + results.get(0).fitness() + " worst " + results.get(results.size()-1).fitness());
 
-		// Now, rebuild the population.
-		population = new HashSet<T>();
+		// Now, rebuild the population (in a fixed order, so that a seeded run is reproducible)
+		population = new LinkedHashSet<T>();
 		
-		// Elitism: keep the best
-		for(int i=0; i<populationSize / 30; i++)
+		// Elitism: keep the best (at least one, so a small population never loses it)
+		for(int i=0; i<Math.max(1, populationSize / 30); i++)
 			population.add(results.get(i));
 		
 		Set<Integer> crossoverOperations = results.get(0).crossoverOperations();
@@ -53,10 +97,11 @@ public class Population<T extends Individual<T>> {
 		
 		double p = 0.6;
 		int k = 2;
+		RandomSource random = this.random != null ? this.random : RandomSource.current();
 		while(population.size() < populationSize) {
-			T mom = tournamentSelect(results, p, k);
+			T mom = tournamentSelect(results, p, k, random);
 			T dad;
-			while((dad = tournamentSelect(results, p, k)) == mom);
+			while((dad = tournamentSelect(results, p, k, random)) == mom);
 			
 			for(int cOp : crossoverOperations) {
 				T bastard = mom.crossover(dad, cOp);
@@ -77,12 +122,24 @@ public class Population<T extends Individual<T>> {
 	 * @return
 	 */
 	public static <T> T tournamentSelect(List<T> pop, double p, int k) {
+		return tournamentSelect(pop, p, k, RandomSource.current());
+	}
+	
+	/**
+	 * Same as {@link #tournamentSelect(List, double, int)}, using the given source of randomness.
+	 * @param pop The population
+	 * @param p Probability of the fittest winning the tournament
+	 * @param k Size of the tournament
+	 * @param random
+	 * @return
+	 */
+	public static <T> T tournamentSelect(List<T> pop, double p, int k, RandomSource random) {
 		SortedSet<T> set = new TreeSet<T>();
 		while(set.size() < k) {
-			set.add(pop.get((int) (Math.random() * pop.size())));
+			set.add(pop.get(random.nextInt(pop.size())));
 		}
 		
-		double guess = Math.random();
+		double guess = random.nextDouble();
 		Iterator<T> iterator = set.iterator();
 		T chosen = iterator.next();
 		double pp = p;
@@ -96,4 +153,38 @@ public class Population<T extends Individual<T>> {
 	public Set<T> getPopulation() {
 		return population;
 	}
+	
+	/**
+	 * The fittest member of the population (calculating the fitness of the ones that don't have it yet).
+	 */
+	public T getBest() {
+		return Collections.min(population);
+	}
+	
+	/**
+	 * Calculates the fitness of the individuals in [from, to), splitting the range in half until it is small enough.
+	 */
+	private static class FitnessTask<T extends Individual<T>> extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private static final int INDIVIDUALS_PER_TASK = 4;
+		private final List<T> individuals;
+		private final int from, to;
+		
+		FitnessTask(List<T> individuals, int from, int to) {
+			this.individuals = individuals;
+			this.from = from;
+			this.to = to;
+		}
+		
+		@Override
+		protected void compute() {
+			if(to - from > INDIVIDUALS_PER_TASK) {
+				int mid = (from + to) >>> 1;
+				invokeAll(new FitnessTask<T>(individuals, from, mid), new FitnessTask<T>(individuals, mid, to));
+				return;
+			}
+			for(int i=from; i<to; i++)
+				individuals.get(i).fitness();
+		}
+	}
 }
@@ -58,14 +58,39 @@ public abstract class GeNN<Self extends Individual<Self>> extends Individual<Sel
 		return weights[layer].cols;
 	}
 	
+	/**
+	 * Number of layers of weights (one less than the number of layers of neurons).
+	 */
+	public int numWeightLayers() {
+		return weights.length;
+	}
+	
+	/**
+	 * Get the weights from the given layer to the next one. These must not be changed.
+	 * @param layer 0 is the input layer
+	 * @return One row per neuron of the next layer, one column per neuron of the given layer
+	 */
+	public Matrix getWeights(int layer) {
+		return weights[layer];
+	}
+	
+	/**
+	 * Get the biases of the neurons of the layer after the given one. These must not be changed.
+	 * @param layer 0 is the input layer
+	 * @return A column vector
+	 */
+	public Matrix getBiases(int layer) {
+		return biases[layer];
+	}
+	
 	/**
 	 * Feed the given input forward through this matrix.
-	 * @param input
-	 * @return
+	 * @param input One column per input: a whole batch can be fed forward at once
+	 * @return The output for each input, in the same columns
 	 */
 	public Matrix forward(Matrix input) {
 		for(int i=0; i<weights.length; i++) {
-			input = Activation.sigma(weights[i].times(input).plusEquals(biases[i]));
+			input = Activation.sigma(weights[i].times(input).plusColumnEquals(biases[i]));
 		}
 		return input;
 	}
@@ -0,0 +1,15 @@
+package pods.controller;
+
+import pods.world.BatchPodWorld;
+
+/**
+ * A Controller that can decide the plays of a whole batch of pods at once, e.g. with a single pass through a
+ * neural network instead of one per pod.
+ */
+public interface BatchController {
+	/**
+	 * Set the next play of every pod in the batch (with {@link BatchPodWorld#setPlay(int, PlayOutput)}).
+	 * @param batch
+	 */
+	void play(BatchPodWorld batch);
+}
@@ -0,0 +1,16 @@
+package pods.controller;
+
+/**
+ * A Controller that writes its play into a given PlayOutput, instead of building a new one. The PodWorld gives
+ * each pod its own PlayInput and PlayOutput, and reuses them every turn, so a BufferedController that doesn't
+ * allocate anything itself can be simulated without producing any garbage.
+ * <br>Only the primitive fields of the PlayInput are guaranteed to be up to date.
+ */
+public interface BufferedController extends Controller {
+	/**
+	 * Given information about the state of a pod, decide what play to make.
+	 * @param in
+	 * @param out Gets the play
+	 */
+	void play(PlayInput in, PlayOutput out);
+}
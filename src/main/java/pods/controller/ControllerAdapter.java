@@ -0,0 +1,47 @@
+package pods.controller;
+
+/**
+ * Lets a plain {@link Controller} be driven as a {@link BufferedController}. The Controller still gets Vecs and
+ * builds its PlayOutput, so this allocates just as before.
+ */
+public class ControllerAdapter implements BufferedController {
+	private final Controller controller;
+	
+	public ControllerAdapter(Controller controller) {
+		this.controller = controller;
+	}
+	
+	public PlayOutput play(PlayInput pi) {
+		return controller.play(pi);
+	}
+	
+	public void play(PlayInput in, PlayOutput out) {
+		play(controller, in, out);
+	}
+	
+	/**
+	 * Get a play from any Controller into the given output, without an adapter.
+	 * @param controller
+	 * @param in
+	 * @param out
+	 */
+	public static void play(Controller controller, PlayInput in, PlayOutput out) {
+		if(controller instanceof BufferedController) {
+			((BufferedController) controller).play(in, out);
+		} else {
+			in.updateVecs();
+			out.set(controller.play(in));
+		}
+	}
+	
+	/**
+	 * Get the given controller as a BufferedController, wrapping it if needed.
+	 * @param controller
+	 * @return
+	 */
+	public static BufferedController of(Controller controller) {
+		if(controller instanceof BufferedController)
+			return (BufferedController) controller;
+		return new ControllerAdapter(controller);
+	}
+}
@@ -0,0 +1,16 @@
+package pods.controller;
+
+import pods.world.PodWorld;
+
+/**
+ * Factory to build a fresh Controller for each race.
+ */
+public interface ControllerFactory {
+	/**
+	 * Build a Controller to race in the given world. If the Controller does not add itself as a player of the
+	 * world (as e.g. the TreeSearchController does), the caller will add it.
+	 * @param world
+	 * @return
+	 */
+	Controller build(PodWorld world);
+}
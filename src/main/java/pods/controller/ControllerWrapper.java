@@ -3,9 +3,12 @@ package pods.controller;
 /**
  * Simple helper to let us dynamically switch controllers.
  */
-public class ControllerWrapper implements Controller {
+public class ControllerWrapper implements BufferedController {
 	public Controller controller;
 	public PlayOutput play(PlayInput pi) {
 		return controller.play(pi);
 	}
+	public void play(PlayInput in, PlayOutput out) {
+		ControllerAdapter.play(controller, in, out);
+	}
 }
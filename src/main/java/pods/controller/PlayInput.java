@@ -4,8 +4,24 @@ import util.Vec;
 
 /**
  * Simple bean to hold the input for a Controller for one turn.
+ * <br>The state is given twice: as Vecs for {@link Controller}s, and as primitive fields for
+ * {@link BufferedController}s, which get the same PlayInput every turn. When a PlayInput is reused, only the
+ * primitive fields are kept up to date (see {@link ControllerAdapter}).
  */
 public class PlayInput {
+	/**
+	 * Location of the pod (truncated)
+	 */
+	public int posX, posY;
+	/**
+	 * The pod's speed
+	 */
+	public double velX, velY;
+	/**
+	 * Coordinates of the next check
+	 */
+	public double nextCheckX, nextCheckY;
+	
 	/**
 	 * Location of the pod
 	 */
@@ -18,6 +34,10 @@ public class PlayInput {
 	 * ID of the next check
 	 */
 	public int nextCheckId;
+	/**
+	 * Number of laps the pod has completed
+	 */
+	public int laps;
 	/**
 	 * Coordinates of the next check
 	 */
@@ -27,6 +47,33 @@ public class PlayInput {
 	 */
 	public Vec vel;
 	
+	/**
+	 * Set the primitive fields from the Vec fields that are set.
+	 */
+	public void updatePrimitives() {
+		if(pos != null) {
+			posX = (int) pos.x;
+			posY = (int) pos.y;
+		}
+		if(vel != null) {
+			velX = vel.x;
+			velY = vel.y;
+		}
+		if(nextCheck != null) {
+			nextCheckX = nextCheck.x;
+			nextCheckY = nextCheck.y;
+		}
+	}
+	
+	/**
+	 * Set the Vec fields from the primitive ones.
+	 */
+	public void updateVecs() {
+		pos = new Vec(posX, posY);
+		vel = new Vec(velX, velY);
+		nextCheck = new Vec(nextCheckX, nextCheckY);
+	}
+	
 	@Override
 	public String toString() {
 		return "Angle: " + angle + " " + Vec.UNIT.rotate(angle)
@@ -8,6 +8,10 @@ import util.Vec;
 public class PlayOutput {
 	public static final int MAX_THRUST = 100;
 	
+	private int dirX, dirY;
+	/**
+	 * (dirX, dirY) as a Vec, built when it is asked for
+	 */
 	private Vec dir;
 	private int thrust;
 	
@@ -16,12 +20,45 @@ public class PlayOutput {
 	 * @param d
 	 */
 	public void setDir(Vec d) {
-		dir = new Vec((int)d.x, (int)d.y);
+		setDir(d.x, d.y);
+	}
+	
+	/**
+	 * Same as {@link #setDir(Vec)}, without building a Vec.
+	 * @param x
+	 * @param y
+	 */
+	public void setDir(double x, double y) {
+		dirX = (int) x;
+		dirY = (int) y;
+		dir = null;
 	}
+	
 	public Vec getDir() {
+		if(dir == null)
+			dir = new Vec(dirX, dirY);
 		return dir;
 	}
 	
+	public int getDirX() {
+		return dirX;
+	}
+	
+	public int getDirY() {
+		return dirY;
+	}
+	
+	/**
+	 * Copy the given play into this one.
+	 * @param other
+	 */
+	public void set(PlayOutput other) {
+		dirX = other.dirX;
+		dirY = other.dirY;
+		dir = other.dir;
+		thrust = other.thrust;
+	}
+	
 	/**
 	 * Setting the thrust (acceleration factor) forces the value to be between 0 and 100.
 	 * @param t
@@ -39,7 +76,7 @@ public class PlayOutput {
 	
 	@Override
 	public String toString() {
-		return "Dir " + dir + " " + Math.atan2(dir.y, dir.x) * 180. / Math.PI
+		return "Dir " + getDir() + " " + Math.atan2(dirY, dirX) * 180. / Math.PI
 				+ "\nThrust " + thrust;
 	}
 }
@@ -0,0 +1,37 @@
+package pods.controller;
+
+import pods.world.PodWorld;
+import util.RandomSource;
+import util.Vec;
+
+/**
+ * Turns by a random angle (within what the pod can turn in one step) with a random thrust. Mostly useful as a
+ * rollout policy, or as a baseline.
+ */
+public class RandomController implements BufferedController {
+	private final RandomSource random;
+
+	/**
+	 * Use a split of the generator of the current thread.
+	 */
+	public RandomController() {
+		this(RandomSource.current().split());
+	}
+
+	public RandomController(RandomSource random) {
+		this.random = random;
+	}
+
+	public PlayOutput play(PlayInput pi) {
+		PlayOutput play = new PlayOutput();
+		pi.updatePrimitives();
+		play(pi, play);
+		return play;
+	}
+
+	public void play(PlayInput in, PlayOutput out) {
+		double angle = in.angle + (2*random.nextDouble() - 1) * PodWorld.MAX_TURN;
+		out.setDir(in.posX + Vec.BIGUNIT.x * Math.cos(angle), in.posY + Vec.BIGUNIT.x * Math.sin(angle));
+		out.setThrust(random.nextInt(PlayOutput.MAX_THRUST + 1));
+	}
+}
@@ -1,7 +1,7 @@
 package pods.controller;
 
 
-public class SimpleController implements Controller {
+public class SimpleController implements BufferedController {
 
 	public PlayOutput play(PlayInput pi) {
 		PlayOutput play = new PlayOutput();
@@ -9,4 +9,9 @@ public class SimpleController implements Controller {
 		play.setThrust(100);
 		return play;
 	}
+
+	public void play(PlayInput in, PlayOutput out) {
+		out.setDir(in.nextCheckX - 2*in.velX, in.nextCheckY - 2*in.velY);
+		out.setThrust(100);
+	}
 }
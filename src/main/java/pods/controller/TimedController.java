@@ -0,0 +1,102 @@
+package pods.controller;
+
+import util.LatencyHistogram;
+
+/**
+ * Decorator that measures how long another Controller takes for each turn, to see the tail latency before
+ * submitting to the game, where every turn has a hard time limit.
+ */
+public class TimedController implements BufferedController {
+	/**
+	 * Time limit of a turn in the real game (apart from the first one)
+	 */
+	public static final long DEFAULT_BUDGET_NANOS = 75000000L;
+
+	private final Controller controller;
+	private final long budgetNanos;
+	private final LatencyHistogram histogram = new LatencyHistogram();
+	private long overBudget = 0;
+	private long worstTurn = -1;
+	private long turns = 0;
+
+	public TimedController(Controller controller) {
+		this(controller, DEFAULT_BUDGET_NANOS);
+	}
+
+	/**
+	 * @param controller The controller to time
+	 * @param budgetNanos Turns that take longer than this are counted as over budget
+	 */
+	public TimedController(Controller controller, long budgetNanos) {
+		this.controller = controller;
+		this.budgetNanos = budgetNanos;
+	}
+
+	public PlayOutput play(PlayInput pi) {
+		long start = System.nanoTime();
+		PlayOutput play = controller.play(pi);
+		record(System.nanoTime() - start);
+		return play;
+	}
+
+	public void play(PlayInput in, PlayOutput out) {
+		long start = System.nanoTime();
+		ControllerAdapter.play(controller, in, out);
+		record(System.nanoTime() - start);
+	}
+
+	private void record(long nanos) {
+		histogram.record(nanos);
+		if(nanos > budgetNanos)
+			overBudget++;
+		if(nanos >= histogram.max())
+			worstTurn = turns;
+		turns++;
+	}
+
+	public Controller getController() {
+		return controller;
+	}
+
+	public long getBudgetNanos() {
+		return budgetNanos;
+	}
+
+	/**
+	 * The time taken by each turn so far, in nanoseconds
+	 */
+	public LatencyHistogram getHistogram() {
+		return histogram;
+	}
+
+	/**
+	 * Number of turns played so far
+	 */
+	public long turns() {
+		return turns;
+	}
+
+	/**
+	 * Number of turns that took longer than the budget
+	 */
+	public long overBudget() {
+		return overBudget;
+	}
+
+	/**
+	 * Index of the slowest turn (starting at 0), or -1 if no turn was played
+	 */
+	public long worstTurn() {
+		return worstTurn;
+	}
+
+	public String summary() {
+		return String.format("%d turns, %d over the %.1f ms budget (worst: turn %d)\n%s",
+				turns, overBudget, budgetNanos / 1e6, worstTurn, histogram);
+	}
+
+	@Override
+	public String toString() {
+		return summary();
+	}
+}
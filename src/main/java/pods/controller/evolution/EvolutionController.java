@@ -0,0 +1,115 @@
+package pods.controller.evolution;
+
+import genetic.Population;
+import pods.controller.Controller;
+import pods.controller.PlayInput;
+import pods.controller.PlayOutput;
+import pods.controller.tree.PodTree;
+import pods.controller.tree.TreeSearchController;
+import pods.world.PodInfo;
+import pods.world.PodWorld;
+import util.RandomSource;
+import util.Vec;
+
+/**
+ * Plays with rolling-horizon evolution: every turn, a population of {@link Plan}s (sequences of plays over the
+ * next few turns) is evolved for a number of generations or until the time budget is spent, and the first play
+ * of the best plan is made. The rest of that plan is the warm start of the next turn's population.
+ * <br>Unlike a tree search, the cost of a generation only grows linearly with the horizon, and the plays are not
+ * limited to a fixed set of turns and thrusts.
+ */
+public class EvolutionController implements Controller {
+	/**
+	 * Number of turns that each plan plays
+	 */
+	public static final int DEFAULT_HORIZON = 8;
+	public static final int DEFAULT_POPULATION = 16;
+	public static final int DEFAULT_GENERATIONS = 100;
+
+	private final PodWorld world;
+	private final int horizon;
+	private final int populationSize;
+	private final int generations;
+	private final long budgetNanos;
+	private final RandomSource random;
+	/**
+	 * The best plan of the last turn
+	 */
+	private Plan best;
+	private int lastGenerations = 0;
+
+	/**
+	 * Use the default horizon, population, number of generations and budget.
+	 * @param world The world to play in
+	 * @param addAsPlayer If false, the caller adds this (or a decorator around it) to the world
+	 */
+	public EvolutionController(PodWorld world, boolean addAsPlayer) {
+		this(world, addAsPlayer, DEFAULT_HORIZON, DEFAULT_POPULATION, DEFAULT_GENERATIONS,
+				TreeSearchController.DEFAULT_BUDGET_NANOS, RandomSource.current().split());
+	}
+
+	/**
+	 * @param world The world to play in
+	 * @param addAsPlayer If false, the caller adds this (or a decorator around it) to the world
+	 * @param horizon Number of turns that each plan plays
+	 * @param populationSize
+	 * @param generations The maximum number of generations per turn
+	 * @param budgetNanos The time to evolve for on each turn, or PodTree.NO_DEADLINE to always run all the
+	 * generations
+	 * @param random Used to build, mutate and cross the plans
+	 */
+	public EvolutionController(PodWorld world, boolean addAsPlayer, int horizon, int populationSize,
+			int generations, long budgetNanos, RandomSource random) {
+		if(horizon < 1)
+			throw new IllegalArgumentException("Needs at least one turn: " + horizon);
+		if(generations < 1)
+			throw new IllegalArgumentException("Needs at least one generation: " + generations);
+		this.world = world;
+		this.horizon = horizon;
+		this.populationSize = populationSize;
+		this.generations = generations;
+		this.budgetNanos = budgetNanos;
+		this.random = random;
+		if(addAsPlayer)
+			world.addPlayer(this);
+	}
+
+	public PlayOutput play(PlayInput pi) {
+		pi.updatePrimitives();
+		PodInfo pod = PodInfo.fromPlayInput(pi);
+		Plan warmStart = best == null ? null : best.shift(pod);
+		Population<Plan> population = new Population<Plan>(populationSize,
+				new PlanFactory(world, pod, horizon, random, warmStart));
+		population.setVerbose(false);
+		population.setRandom(random);
+
+		long deadline = budgetNanos == PodTree.NO_DEADLINE ? PodTree.NO_DEADLINE : System.nanoTime() + budgetNanos;
+		int g = 0;
+		// Always run one generation, so the warm start gets compared with something
+		do {
+			population.newGeneration();
+			g++;
+		} while(g < generations && (deadline == PodTree.NO_DEADLINE || System.nanoTime() - deadline < 0));
+		lastGenerations = g;
+
+		best = population.getBest();
+		PlayOutput play = new PlayOutput();
+		play.setThrust(best.thrust(0));
+		play.setDir(pi.pos.plus(Vec.BIGUNIT.rotate(pi.angle + best.turn(0))));
+		return play;
+	}
+
+	/**
+	 * The number of generations run on the last turn
+	 */
+	public int getLastGenerations() {
+		return lastGenerations;
+	}
+
+	/**
+	 * The best plan found on the last turn (starting with the play that was made), or null before the first turn
+	 */
+	public Plan getBest() {
+		return best;
+	}
+}
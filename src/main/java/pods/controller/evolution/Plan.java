@@ -0,0 +1,184 @@
+package pods.controller.evolution;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import genetic.Individual;
+import pods.controller.PlayOutput;
+import pods.world.PodInfo;
+import pods.world.PodWorld;
+import util.RandomSource;
+
+/**
+ * A fixed-length sequence of plays for a pod, one per turn, to evolve with a {@link genetic.Population}. The
+ * genome is a single array of (turn, thrust) pairs: the change of angle in [-MAX_TURN, MAX_TURN], and the thrust
+ * in [0, MAX_THRUST] (rounded when played).
+ * <br>The fitness is the score of the pod after playing the whole sequence from the start state, as simulated
+ * by {@link PodWorld#stepTest(PodInfo, double, int)}.
+ */
+public class Plan extends Individual<Plan> {
+	/**
+	 * Mutations: replace one play with a random one, or move every gene a little
+	 */
+	public static final int MUTATE_ONE = 0, MUTATE_ALL = 1;
+	/**
+	 * Crossovers: each play from either parent, or the start of one and the end of the other
+	 */
+	public static final int UNIFORM = 0, ONE_POINT = 1;
+	public static final Set<Integer> MUTATION_OPS, CROSSOVER_OPS;
+	static {
+		HashSet<Integer> set = new HashSet<Integer>();
+		set.add(MUTATE_ONE);
+		set.add(MUTATE_ALL);
+		MUTATION_OPS = Collections.unmodifiableSet(set);
+
+		set = new HashSet<Integer>();
+		set.add(UNIFORM);
+		set.add(ONE_POINT);
+		CROSSOVER_OPS = Collections.unmodifiableSet(set);
+	}
+	/**
+	 * How far MUTATE_ALL can move a gene, as a fraction of its range
+	 */
+	public static final double NUDGE = 0.2;
+	/**
+	 * The direction bonus of a score can be down to -200, and fitness must not be negative
+	 */
+	private static final long FITNESS_OFFSET = 200;
+
+	private final PodWorld world;
+	private final PodInfo start;
+	private final RandomSource random;
+	/**
+	 * Turn and thrust of each play
+	 */
+	final double[] genes;
+
+	/**
+	 * A random plan.
+	 * @param world
+	 * @param start The state of the pod before the first play. It is shared, so it must not be changed.
+	 * @param length Number of plays
+	 * @param random Used to build, mutate and cross the plan and its descendants
+	 */
+	public Plan(PodWorld world, PodInfo start, int length, RandomSource random) {
+		this(world, start, new double[2 * length], random);
+		for(int i=0; i<length; i++)
+			randomize(i);
+	}
+
+	private Plan(PodWorld world, PodInfo start, double[] genes, RandomSource random) {
+		this.world = world;
+		this.start = start;
+		this.genes = genes;
+		this.random = random;
+	}
+
+	/**
+	 * Number of plays
+	 */
+	public int length() {
+		return genes.length / 2;
+	}
+
+	/**
+	 * The change of angle of the given play, in radians
+	 */
+	public double turn(int i) {
+		return genes[2*i];
+	}
+
+	public int thrust(int i) {
+		return (int) Math.round(genes[2*i + 1]);
+	}
+
+	@Override
+	protected long calculateFitness() {
+		PodInfo pod = start;
+		for(int i=0; i<length(); i++)
+			pod = world.stepTest(pod, turn(i), thrust(i));
+		return pod.score(world) + FITNESS_OFFSET;
+	}
+
+	/**
+	 * The same plays one turn later, from the given state: the first play is dropped, and the last one is repeated.
+	 * @param next The state of the pod after the first play
+	 */
+	public Plan shift(PodInfo next) {
+		double[] shifted = new double[genes.length];
+		System.arraycopy(genes, 2, shifted, 0, genes.length - 2);
+		shifted[genes.length - 2] = genes[genes.length - 2];
+		shifted[genes.length - 1] = genes[genes.length - 1];
+		return new Plan(world, next, shifted, random);
+	}
+
+	@Override
+	public void mutate(int op) {
+		switch(op) {
+		case MUTATE_ONE:
+			randomize(random.nextInt(length()));
+			break;
+		case MUTATE_ALL:
+			for(int i=0; i<length(); i++) {
+				genes[2*i] = clamp(genes[2*i] + (2*random.nextDouble() - 1) * NUDGE * PodWorld.MAX_TURN,
+						-PodWorld.MAX_TURN, PodWorld.MAX_TURN);
+				genes[2*i + 1] = clamp(genes[2*i + 1] + (2*random.nextDouble() - 1) * NUDGE * PlayOutput.MAX_THRUST,
+						0, PlayOutput.MAX_THRUST);
+			}
+			break;
+		default:
+			throw new IllegalArgumentException("Unknown mutation: " + op);
+		}
+		clearFitness();
+	}
+
+	@Override
+	public Set<Integer> mutationOperations() {
+		return MUTATION_OPS;
+	}
+
+	@Override
+	public Plan crossover(Plan partner, int op) {
+		double[] child = new double[genes.length];
+		switch(op) {
+		case UNIFORM:
+			for(int i=0; i<length(); i++) {
+				double[] from = random.nextInt(2) == 0 ? genes : partner.genes;
+				child[2*i] = from[2*i];
+				child[2*i + 1] = from[2*i + 1];
+			}
+			break;
+		case ONE_POINT:
+			int cut = 2 * random.nextInt(length() + 1);
+			System.arraycopy(genes, 0, child, 0, cut);
+			System.arraycopy(partner.genes, cut, child, cut, genes.length - cut);
+			break;
+		default:
+			throw new IllegalArgumentException("Unknown crossover: " + op);
+		}
+		return new Plan(world, start, child, random);
+	}
+
+	@Override
+	public Set<Integer> crossoverOperations() {
+		return CROSSOVER_OPS;
+	}
+
+	@Override
+	public Plan clone() {
+		return new Plan(world, start, genes.clone(), random);
+	}
+
+	/**
+	 * Replace the given play with a random one.
+	 */
+	private void randomize(int i) {
+		genes[2*i] = (2*random.nextDouble() - 1) * PodWorld.MAX_TURN;
+		genes[2*i + 1] = random.nextDouble() * PlayOutput.MAX_THRUST;
+	}
+
+	private static double clamp(double value, double min, double max) {
+		return Math.max(min, Math.min(max, value));
+	}
+}
@@ -0,0 +1,53 @@
+package pods.controller.evolution;
+
+import genetic.IndividualFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import pods.world.PodInfo;
+import pods.world.PodWorld;
+import util.RandomSource;
+
+/**
+ * Factory to generate the first population of plans for a turn. With a warm start (usually the best plan of the
+ * last turn, shifted by one turn), it is kept as is, half of the others are variations of it, and the rest are
+ * random.
+ */
+public class PlanFactory implements IndividualFactory<Plan> {
+	private final PodWorld world;
+	private final PodInfo start;
+	private final int length;
+	private final RandomSource random;
+	private final Plan warmStart;
+
+	/**
+	 * @param world
+	 * @param start The state of the pod before the first play
+	 * @param length Number of plays in each plan
+	 * @param random
+	 * @param warmStart A plan from the same start state, or null to only generate random plans
+	 */
+	public PlanFactory(PodWorld world, PodInfo start, int length, RandomSource random, Plan warmStart) {
+		this.world = world;
+		this.start = start;
+		this.length = length;
+		this.random = random;
+		this.warmStart = warmStart;
+	}
+
+	public Iterable<Plan> generate(int num) {
+		List<Plan> plans = new ArrayList<Plan>();
+		if(warmStart != null) {
+			plans.add(warmStart);
+			while(plans.size() < (num + 1) / 2) {
+				Plan variation = warmStart.clone();
+				variation.mutate(Plan.MUTATE_ALL);
+				plans.add(variation);
+			}
+		}
+		while(plans.size() < num)
+			plans.add(new Plan(world, start, length, random));
+		return plans;
+	}
+}
@@ -0,0 +1,260 @@
+package pods.controller.nn;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+
+import util.Matrix;
+
+/**
+ * Turns a trained {@link GeNNController} into a single Java source file that plays the game on its own, without
+ * the nn/util/genetic classes.
+ * <br>The weights are stored as floats, base64-encoded in string literals (about 5.3 characters per weight), and
+ * decoded once when the class is loaded. The forward pass has one method per layer, unrolled with one line per
+ * neuron, so there are no Matrix objects to build: loading the class and playing the first turn take a few
+ * milliseconds. A layer with more than {@link #UNROLL_LIMIT} weights gets a loop instead, and so do the layers that
+ * would make the file longer than {@link #MAX_SOURCE_LENGTH}: they are unrolled from the first one, as long as the
+ * whole file fits.
+ * <br>Since the weights are rounded to floats, the exported bot can aim very slightly differently from the
+ * controller (a fraction of a degree at most).
+ * <br>The generated main loop reads the input of the full game (with 2 pods per player), and plays both pods
+ * with the network.
+ */
+public class BotExporter {
+	/**
+	 * The class name expected by the game
+	 */
+	public static final String DEFAULT_CLASS_NAME = "Player";
+	/**
+	 * Layers with more weights than this are not unrolled, so that each method stays under the 64KB of bytecode
+	 * allowed by the JVM
+	 */
+	public static final int UNROLL_LIMIT = 2000;
+	/**
+	 * Maximum number of characters of the exported file, as accepted by the game
+	 */
+	public static final int MAX_SOURCE_LENGTH = 100000;
+	/**
+	 * String constants are limited to 65535 bytes in a class file, so longer literals are split
+	 */
+	private static final int MAX_LITERAL = 60000;
+
+	/**
+	 * Export the given controller, with the default class name.
+	 * @param controller
+	 * @return The source of the class
+	 */
+	public static String export(GeNNController controller) {
+		return export(controller, DEFAULT_CLASS_NAME);
+	}
+
+	/**
+	 * Export the given controller and write it to the given file.
+	 * @param controller
+	 * @param file Should be named after the default class name, e.g. Player.java
+	 * @throws IOException
+	 */
+	public static void export(GeNNController controller, Path file) throws IOException {
+		Files.write(file, export(controller).getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * @param controller
+	 * @param className The name of the generated class (in the default package)
+	 * @return The source of the class
+	 * @throws IllegalArgumentException If the network is too large to fit in {@link #MAX_SOURCE_LENGTH}
+	 * characters, even without unrolling
+	 */
+	public static String export(GeNNController controller, String className) {
+		StringBuilder sb = new StringBuilder();
+		int layers = controller.numWeightLayers();
+
+		sb.append("import java.nio.ByteBuffer;\n");
+		sb.append("import java.util.Base64;\n");
+		sb.append("import java.util.Scanner;\n\n");
+		sb.append("/**\n * Generated by ").append(BotExporter.class.getName()).append(": network ");
+		for(int l=0; l<=layers; l++)
+			sb.append(l == 0 ? "" : "-").append(controller.numNeurons(l));
+		sb.append("\n */\n");
+		sb.append("class ").append(className).append(" {\n");
+
+		// Weights
+		for(int l=0; l<layers; l++) {
+			literal(sb, "W" + l, controller.getWeights(l));
+			literal(sb, "B" + l, controller.getBiases(l));
+		}
+		// Activations of each layer (a0 is the input)
+		for(int l=0; l<=layers; l++)
+			sb.append("\tstatic final double[] a").append(l).append(" = new double[").append(controller.numNeurons(l))
+					.append("];\n");
+		sb.append("\n");
+
+		sb.append("\tstatic float[] floats(String... parts) {\n");
+		sb.append("\t\tStringBuilder sb = new StringBuilder();\n");
+		sb.append("\t\tfor(String p : parts)\n");
+		sb.append("\t\t\tsb.append(p);\n");
+		sb.append("\t\tByteBuffer b = ByteBuffer.wrap(Base64.getDecoder().decode(sb.toString()));\n");
+		sb.append("\t\tfloat[] f = new float[b.remaining() / 4];\n");
+		sb.append("\t\tb.asFloatBuffer().get(f);\n");
+		sb.append("\t\treturn f;\n");
+		sb.append("\t}\n\n");
+
+		sb.append("\tstatic double s(double z) {\n");
+		sb.append("\t\treturn 1. / (Math.expm1(-z) + 2.);\n");
+		sb.append("\t}\n\n");
+
+		StringBuilder tail = new StringBuilder();
+		play(tail, layers);
+		main(tail);
+		tail.append("}\n");
+
+		// Start with loops everywhere, then unroll the layers in order while the file stays small enough
+		String[] loops = new String[layers], unrolled = new String[layers];
+		int length = sb.length() + tail.length() + forward(layers).length();
+		for(int l=0; l<layers; l++) {
+			loops[l] = loop(controller, l);
+			if(controller.numNeurons(l) * controller.numNeurons(l+1) <= UNROLL_LIMIT)
+				unrolled[l] = unrolled(controller, l);
+			length += loops[l].length();
+		}
+		if(length > MAX_SOURCE_LENGTH)
+			throw new IllegalArgumentException("The network needs " + length + " characters, more than "
+					+ MAX_SOURCE_LENGTH);
+
+		sb.append(forward(layers));
+		for(int l=0; l<layers; l++) {
+			if(unrolled[l] != null && length - loops[l].length() + unrolled[l].length() <= MAX_SOURCE_LENGTH) {
+				length += unrolled[l].length() - loops[l].length();
+				sb.append(unrolled[l]);
+			} else {
+				sb.append(loops[l]);
+			}
+		}
+		sb.append(tail);
+		return sb.toString();
+	}
+
+	/**
+	 * Declare a float array holding the values of the given Matrix.
+	 */
+	private static void literal(StringBuilder sb, String name, Matrix m) {
+		ByteBuffer b = ByteBuffer.allocate(4 * m.data.length);
+		for(double d : m.data)
+			b.putFloat((float) d);
+		String encoded = Base64.getEncoder().encodeToString(b.array());
+
+		sb.append("\tstatic final float[] ").append(name).append(" = floats(");
+		for(int i=0; i<encoded.length(); i+=MAX_LITERAL) {
+			if(i > 0)
+				sb.append(",\n\t\t\t");
+			sb.append('"').append(encoded, i, Math.min(encoded.length(), i + MAX_LITERAL)).append('"');
+		}
+		sb.append(");\n");
+	}
+
+	/**
+	 * The forward pass, from a0 to the output layer, one method per layer.
+	 */
+	private static String forward(int layers) {
+		StringBuilder sb = new StringBuilder("\tstatic void forward() {\n");
+		for(int l=0; l<layers; l++)
+			sb.append("\t\tlayer").append(l).append("();\n");
+		return sb.append("\t}\n\n").toString();
+	}
+
+	/**
+	 * The method computing the given layer with a loop, in the same order of operations as GeNN.forward.
+	 */
+	private static String loop(GeNNController controller, int l) {
+		int in = controller.numNeurons(l), out = controller.numNeurons(l+1);
+		String w = "W" + l, b = "B" + l, from = "a" + l, to = "a" + (l+1);
+		StringBuilder sb = new StringBuilder();
+		sb.append("\tstatic void layer").append(l).append("() {\n");
+		sb.append("\t\tfor(int j=0; j<").append(out).append("; j++) {\n");
+		sb.append("\t\t\tdouble z = 0;\n");
+		sb.append("\t\t\tfor(int i=0; i<").append(in).append("; i++)\n");
+		sb.append("\t\t\t\tz += ").append(w).append("[j*").append(in).append(" + i] * ").append(from)
+				.append("[i];\n");
+		sb.append("\t\t\t").append(to).append("[j] = s(z + ").append(b).append("[j]);\n");
+		sb.append("\t\t}\n");
+		return sb.append("\t}\n\n").toString();
+	}
+
+	/**
+	 * The method computing the given layer with one line per neuron, in the same order of operations as
+	 * GeNN.forward.
+	 */
+	private static String unrolled(GeNNController controller, int l) {
+		int in = controller.numNeurons(l), out = controller.numNeurons(l+1);
+		String w = "W" + l, b = "B" + l, from = "a" + l, to = "a" + (l+1);
+		StringBuilder sb = new StringBuilder();
+		sb.append("\tstatic void layer").append(l).append("() {\n");
+		for(int j=0; j<out; j++) {
+			sb.append("\t\t").append(to).append('[').append(j).append("] = s(");
+			for(int i=0; i<in; i++) {
+				if(i > 0)
+					sb.append(" + ");
+				sb.append(w).append('[').append(j*in + i).append("]*").append(from).append('[').append(i).append(']');
+			}
+			sb.append(" + ").append(b).append('[').append(j).append("]);\n");
+		}
+		return sb.append("\t}\n\n").toString();
+	}
+
+	/**
+	 * Same as GeNNController.buildInput, forward and buildOutput.
+	 */
+	private static void play(StringBuilder sb, int layers) {
+		sb.append("\t/**\n\t * @param angle In radians\n\t * @return The target x, y and the thrust\n\t */\n");
+		sb.append("\tstatic int[] play(int posX, int posY, double velX, double velY, double angle, double checkX, double checkY) {\n");
+		sb.append("\t\tdouble cos = Math.cos(-angle), sin = Math.sin(-angle);\n");
+		sb.append("\t\ta0[0] = (velX*cos - velY*sin) * (1. / 700.);\n");
+		sb.append("\t\ta0[1] = (velX*sin + velY*cos) * (1. / 700.);\n");
+		sb.append("\t\tdouble dx = checkX - posX, dy = checkY - posY;\n");
+		sb.append("\t\tdouble x = ").append(GeNNController.WORLD_TO_NN_SCALE).append(" * (dx*cos - dy*sin), y = ")
+				.append(GeNNController.WORLD_TO_NN_SCALE).append(" * (dx*sin + dy*cos);\n");
+		sb.append("\t\ta0[2] = x;\n\t\ta0[3] = y;\n\t\ta0[4] = x;\n\t\ta0[5] = y;\n");
+		sb.append("\t\tforward();\n\n");
+
+		String out = "a" + layers;
+		sb.append("\t\tx = ").append(GeNNController.DIR_STRETCH).append(" * (").append(out).append("[0] + (")
+				.append(GeNNController.DIR_ADJ.x).append("));\n");
+		sb.append("\t\ty = ").append(GeNNController.DIR_STRETCH).append(" * (").append(out).append("[1] + (")
+				.append(GeNNController.DIR_ADJ.y).append("));\n");
+		sb.append("\t\tcos = Math.cos(angle);\n\t\tsin = Math.sin(angle);\n");
+		sb.append("\t\tint thrust = (int) (").append(out).append("[2] * ").append(GeNNController.THR_STRETCH)
+				.append(");\n");
+		sb.append("\t\treturn new int[] {(int) (x*cos - y*sin + posX), (int) (x*sin + y*cos + posY), ")
+				.append("Math.max(0, Math.min(100, thrust))};\n");
+		sb.append("\t}\n\n");
+	}
+
+	private static void main(StringBuilder sb) {
+		sb.append("\tpublic static void main(String[] args) {\n");
+		sb.append("\t\tScanner in = new Scanner(System.in);\n");
+		sb.append("\t\tin.nextInt(); // laps\n");
+		sb.append("\t\tint numChecks = in.nextInt();\n");
+		sb.append("\t\tint[] checkX = new int[numChecks], checkY = new int[numChecks];\n");
+		sb.append("\t\tfor(int i=0; i<numChecks; i++) {\n");
+		sb.append("\t\t\tcheckX[i] = in.nextInt();\n\t\t\tcheckY[i] = in.nextInt();\n");
+		sb.append("\t\t}\n\n");
+		sb.append("\t\twhile(true) {\n");
+		sb.append("\t\t\tStringBuilder out = new StringBuilder();\n");
+		sb.append("\t\t\tfor(int p=0; p<4; p++) {\n");
+		sb.append("\t\t\t\tint x = in.nextInt(), y = in.nextInt(), vx = in.nextInt(), vy = in.nextInt();\n");
+		sb.append("\t\t\t\tint angle = in.nextInt(), next = in.nextInt();\n");
+		sb.append("\t\t\t\tif(p >= 2)\n\t\t\t\t\tcontinue;\n");
+		sb.append("\t\t\t\t// On the first turn the pods can face any direction\n");
+		sb.append("\t\t\t\tdouble a = angle < 0 ? Math.atan2(checkY[next] - y, checkX[next] - x) : Math.toRadians(angle);\n");
+		sb.append("\t\t\t\tint[] play = play(x, y, vx, vy, a, checkX[next], checkY[next]);\n");
+		sb.append("\t\t\t\tout.append(play[0]).append(' ').append(play[1]).append(' ').append(play[2]).append('\\n');\n");
+		sb.append("\t\t\t}\n");
+		sb.append("\t\t\tSystem.out.print(out);\n");
+		sb.append("\t\t\tSystem.out.flush();\n");
+		sb.append("\t\t}\n");
+		sb.append("\t}\n");
+	}
+}
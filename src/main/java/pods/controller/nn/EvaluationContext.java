@@ -0,0 +1,168 @@
+package pods.controller.nn;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import pods.controller.ControllerWrapper;
+import pods.world.BatchPodWorld;
+import pods.world.PodInfo;
+import pods.world.PodWorld;
+import pods.world.PodWorld.Snapshot;
+import util.Vec;
+
+/**
+ * Everything needed to evaluate a {@link GeNNController}: the training worlds, the current world and starting
+ * position, the test scenarios, and the number of steps each scenario is run for.
+ * <br>Evaluating fitness only reads this, so any number of controllers can be evaluated at the same time, on
+ * any number of threads. Only {@link #nextTest()} and {@link #setSteps(int)} change it, and they must not be
+ * called while controllers are being evaluated.
+ * <br>The context also has a wrapper that plays in every world, to watch a controller play (see
+ * {@link GeNNController#setActivePlayer()}).
+ */
+public class EvaluationContext {
+	public static final int DEFAULT_STEPS = 10;
+
+	private static final List<Vec> startingVelocities;
+	private static final List<Double> startingDirections;
+	static {
+		List<Vec> velocities = new ArrayList<Vec>();
+		for(double angle = 0; angle < 2*Math.PI; angle += Math.PI / 2) {
+			for(double mag = 0; mag < 650; mag += 200) {
+				velocities.add(Vec.UNIT.rotate(angle).times(mag));
+			}
+		}
+		startingVelocities = Collections.unmodifiableList(velocities);
+
+		List<Double> directions = new ArrayList<Double>();
+		for(double angle = 0; angle < 2*Math.PI; angle += Math.PI / 2) {
+			directions.add(angle);
+		}
+		startingDirections = Collections.unmodifiableList(directions);
+	}
+
+	private final List<PodWorld> worlds;
+	private final ControllerWrapper wrapper = new ControllerWrapper();
+	private Iterator<PodWorld> worldIt;
+	private PodWorld world;
+	private Vec startingPos;
+	/**
+	 * The state of the pod at the start of each scenario
+	 */
+	private List<PodInfo> scenarios = Collections.emptyList();
+	/**
+	 * The state of the current world at the start of each scenario, with the wrapper's pod in it
+	 */
+	private List<Snapshot> snapshots = Collections.emptyList();
+	private int steps = DEFAULT_STEPS;
+
+	/**
+	 * @param worlds The worlds to use for training. The wrapper is added as a player to each of them.
+	 */
+	public EvaluationContext(Collection<PodWorld> worlds) {
+		if(worlds.isEmpty())
+			throw new IllegalArgumentException("No worlds to train on");
+		this.worlds = new ArrayList<PodWorld>(worlds);
+		for(PodWorld world : this.worlds) {
+			world.addPlayer(wrapper);
+		}
+		nextTest();
+	}
+
+	/**
+	 * Step to the next world/position configuration
+	 */
+	public void nextTest() {
+		if(worldIt == null || !worldIt.hasNext()) {
+			worldIt = worlds.iterator();
+		}
+
+		world = worldIt.next();
+		startingPos = world.getCheckpoints().get(0).minus(new Vec(2500, 2500));
+
+		List<PodInfo> pods = new ArrayList<PodInfo>();
+		for(Vec vel : startingVelocities) {
+			for(double dir : startingDirections) {
+				PodInfo pod = new PodInfo();
+				pod.pos = startingPos;
+				pod.vel = vel;
+				pod.angle = dir;
+				pods.add(pod);
+			}
+		}
+		scenarios = Collections.unmodifiableList(pods);
+
+		// Save the starting state of the world for every scenario, so that each run just has to restore it
+		List<Snapshot> snaps = new ArrayList<Snapshot>();
+		PodInfo pod = world.getPod(wrapper);
+		for(PodInfo start : scenarios) {
+			pod.pos = start.pos;
+			pod.vel = start.vel;
+			pod.angle = start.angle;
+			pod.nextCheck = 0;
+			pod.laps = 0;
+			snaps.add(world.snapshot());
+		}
+		snapshots = Collections.unmodifiableList(snaps);
+	}
+
+	public PodWorld getWorld() {
+		return world;
+	}
+
+	public Vec getStartingPos() {
+		return startingPos;
+	}
+
+	/**
+	 * The number of steps to go through in the world to calculate fitness.
+	 */
+	public int getSteps() {
+		return steps;
+	}
+
+	public void setSteps(int steps) {
+		this.steps = steps;
+	}
+
+	/**
+	 * The state of the pod at the start of each scenario. These must not be changed.
+	 */
+	public List<PodInfo> getScenarios() {
+		return scenarios;
+	}
+
+	/**
+	 * The state of the current world at the start of each scenario (in the same order as {@link #getScenarios()}),
+	 * to give to {@link PodWorld#restore(Snapshot)}.
+	 */
+	public List<Snapshot> getSnapshots() {
+		return snapshots;
+	}
+
+	/**
+	 * Scenarios come in groups with the same starting velocity, and one of each starting direction.
+	 */
+	public int scenariosPerVelocity() {
+		return startingDirections.size();
+	}
+
+	/**
+	 * Build a new batch with one pod at the start of each scenario.
+	 */
+	public BatchPodWorld newBatch() {
+		BatchPodWorld batch = new BatchPodWorld(world, scenarios.size());
+		for(int i=0; i<scenarios.size(); i++)
+			batch.setPod(i, scenarios.get(i));
+		return batch;
+	}
+
+	/**
+	 * The wrapper that plays in each world.
+	 */
+	public ControllerWrapper getWrapper() {
+		return wrapper;
+	}
+}
@@ -1,24 +1,24 @@
 package pods.controller.nn;
 
-import java.util.ArrayList;
-import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 
 import nn.GeNN;
+import pods.controller.BatchController;
 import pods.controller.Controller;
-import pods.controller.ControllerWrapper;
 import pods.controller.PlayInput;
 import pods.controller.PlayOutput;
+import pods.world.BatchPodWorld;
 import pods.world.PodInfo;
 import pods.world.PodWorld;
+import pods.world.PodWorld.Snapshot;
 import util.Matrix;
+import util.RandomSource;
 import util.Vec;
 
-public class GeNNController extends GeNN<GeNNController> implements Controller {
+public class GeNNController extends GeNN<GeNNController> implements Controller, BatchController {
 	/**
 	 * Number of neurons in the input and output layers
 	 */
@@ -39,7 +39,7 @@ public class GeNNController extends GeNN<GeNNController> implements Controller {
 	/**
 	 * Multipliers to transform NN output units to world units
 	 */
-	private static final double DIR_STRETCH = 1000000., THR_STRETCH = 110.;
+	static final double DIR_STRETCH = 1000000., THR_STRETCH = 110.;
 	/**
 	 * Direction adjustment
 	 */
@@ -62,55 +62,9 @@ public class GeNNController extends GeNN<GeNNController> implements Controller {
 	}
 	
 	/**
-	 * The number of steps to go through in the world to calculate fitness.
+	 * Where fitness is evaluated. Null if this controller is only used to play.
 	 */
-	public static int STEPS_FOR_FITNESS = 10;
-	
-	/**
-	 * Get all GeNNControllers ready to test using the given worlds.
-	 * @param _worlds
-	 */
-	public static void prepare(Collection<PodWorld> worlds) {
-		GeNNController.worlds = worlds;
-		wrapper = new ControllerWrapper();
-		for(PodWorld world : worlds) {
-			world.addPlayer(wrapper);
-		}
-	}
-
-	private static Iterator<PodWorld> worldIt;
-	private static Vec currentStartingPos;
-	/**
-	 * Step to the next world/position configuration
-	 */
-	public static void setupNextTest() {
-		if(worldIt == null || !worldIt.hasNext()) {
-			worldIt = worlds.iterator();
-		}
-		
-		currentWorld = worldIt.next();
-		currentStartingPos = currentWorld.getCheckpoints().get(0).minus(new Vec(2500, 2500));
-	}
-	
-	private static ControllerWrapper wrapper;
-	private static PodWorld currentWorld;
-	
-	private static Collection<PodWorld> worlds;
-	private static final List<Vec> startingVelocities;
-	private static final List<Double> startingDirections;
-	static {
-		startingVelocities = new ArrayList<Vec>();
-		for(double angle = 0; angle < 2*Math.PI; angle += Math.PI / 2) {
-			for(double mag = 0; mag < 650; mag += 200) {
-				startingVelocities.add(Vec.UNIT.rotate(angle).times(mag));
-			}
-		}
-		
-		startingDirections = new ArrayList<Double>();
-		for(double angle = 0; angle < 2*Math.PI; angle += Math.PI / 2) {
-			startingDirections.add(angle);
-		}
-	}
+	private final EvaluationContext context;
 	
 	/**
 	 * Append the input and output layers to the given list of layer sizes.
@@ -125,53 +79,78 @@ public class GeNNController extends GeNN<GeNNController> implements Controller {
 	}
 
 	/**
-	 * @param world
-	 * @param wrapper The wrapper that is used to substitute this Controller when calculating fitness
+	 * Create a controller that can only play (its fitness cannot be calculated).
 	 * @param layers Sizes of the HIDDEN LAYERS ONLY! Input and output layers will automatically be added.
 	 */
 	public GeNNController(int ...layers) {
+		this(null, layers);
+	}
+	
+	/**
+	 * @param context Where fitness is evaluated
+	 * @param layers Sizes of the HIDDEN LAYERS ONLY! Input and output layers will automatically be added.
+	 */
+	public GeNNController(EvaluationContext context, int ...layers) {
 		super(getRealLayers(layers));
+		this.context = context;
 	}
 	
 	/**
-	 * Copy constructor. Create another controller with the same weights and biases.
+	 * Copy constructor. Create another controller with the same weights and biases, in the same context.
 	 * @param parent
 	 */
 	private GeNNController(GeNNController parent) {
 		super(parent.weights, parent.biases);
+		context = parent.context;
+	}
+	
+	public EvaluationContext getContext() {
+		return context;
 	}
 	
 	/**
-	 * Set this Controller to be the one that actually plays.
+	 * Set this Controller to be the one that actually plays in the worlds of its context.
 	 */
 	public void setActivePlayer() {
-		wrapper.controller = this;
+		context.getWrapper().controller = this;
 	}
 	
+	/**
+	 * All the scenarios are run together in a BatchPodWorld, so that each step is a single pass through the
+	 * network. This gives the same result as running them one by one in the world.
+	 * <br>Nothing is shared with other evaluations, so this can run on several threads at once.
+	 */
 	@Override
 	protected long calculateFitness() {
-		wrapper.controller = this;
-		long total = 0;
-		for(Vec vel : startingVelocities) {
-			for(double dir : startingDirections) {
-				PodInfo pod = currentWorld.getPod(wrapper);
-				pod.pos = currentStartingPos;
-				pod.vel = vel;
-				pod.angle = dir;
-				pod.laps = 0;
-				pod.nextCheck = 0;
-				total += doCalculateFitness(pod);
-			}
+		if(context == null)
+			throw new IllegalStateException("This controller has no evaluation context");
+		BatchPodWorld batch = context.newBatch();
+		for(int i=0; i<context.getSteps(); i++) {
+			play(batch);
+			batch.step();
 		}
+		
+		long total = 0;
+		for(int i=0; i<batch.size(); i++)
+			total += batch.getPod(i).score(context.getWorld());
 		return total;
 	}
 	
-	protected long doCalculateFitness(PodInfo pod) {
-		for(int i=0; i<STEPS_FOR_FITNESS; i++) {
-			currentWorld.step();
+	/**
+	 * Same as {@link #calculateFitness()}, running the scenarios one by one in the world (much slower).
+	 */
+	long calculateFitnessInWorld() {
+		setActivePlayer();
+		PodWorld world = context.getWorld();
+		PodInfo pod = world.getPod(context.getWrapper());
+		long total = 0;
+		for(Snapshot start : context.getSnapshots()) {
+			world.restore(start);
+			for(int i=0; i<context.getSteps(); i++)
+				world.step();
+			total += pod.score(world);
 		}
-		
-		return pod.score(currentWorld);
+		return total;
 	}
 	
 	public PlayOutput play(PlayInput pi) {
@@ -180,6 +159,23 @@ public class GeNNController extends GeNN<GeNNController> implements Controller {
 		return buildOutput(pi, output);
 	}
 	
+	public void play(BatchPodWorld batch) {
+		PlayInput pi = new PlayInput();
+		PlayOutput play = new PlayOutput();
+		Matrix inputs = new Matrix(INPUT_SIZE, batch.size());
+		for(int i=0; i<batch.size(); i++) {
+			batch.fillPlayInput(i, pi);
+			buildInput(pi, inputs, i);
+		}
+		
+		Matrix outputs = forward(inputs);
+		for(int i=0; i<batch.size(); i++) {
+			batch.fillPlayInput(i, pi);
+			buildOutput(pi, outputs, i, play);
+			batch.setPlay(i, play);
+		}
+	}
+	
 	/**
 	 * Build the actual Play based on the input and output from the NN.
 	 * @param pi
@@ -188,22 +184,30 @@ public class GeNNController extends GeNN<GeNNController> implements Controller {
 	 */
 	public static PlayOutput buildOutput(PlayInput pi, Matrix output) {
 		PlayOutput play = new PlayOutput();
-		play.setDir(new Vec(
-				// Start with the output direction...
-				output.at(0, 0),
-				output.at(1, 0))
-			// Adjust it so that we can have negative values
-			.plus(DIR_ADJ)
-			// Stretch it to increase precision (since it will be rounded)
-			.times(DIR_STRETCH)
-			// Rotate the result, since we standardized the rotation in the input
-			.rotate(pi.angle)
-			// Move it, since the input is relative to the position
-			.plus(pi.pos));
-		
-		play.setThrust((int) (output.at(2, 0) * THR_STRETCH));
+		pi.updatePrimitives();
+		buildOutput(pi, output, 0, play);
 		return play;
 	}
+	
+	/**
+	 * Same as {@link #buildOutput(PlayInput, Matrix)}, for one column of a batch of outputs.
+	 * @param pi Only the primitive fields are used
+	 * @param output The outputs of the NN
+	 * @param col The column of the output to use
+	 * @param play Gets the play
+	 */
+	public static void buildOutput(PlayInput pi, Matrix output, int col, PlayOutput play) {
+		// Start with the output direction, adjusted so that we can have negative values, and stretched
+		// to increase precision (since it will be rounded)
+		double x = DIR_STRETCH * (output.at(0, col) + DIR_ADJ.x);
+		double y = DIR_STRETCH * (output.at(1, col) + DIR_ADJ.y);
+		// Rotate the result, since we standardized the rotation in the input
+		double cos = Math.cos(pi.angle), sin = Math.sin(pi.angle);
+		// Move it, since the input is relative to the position
+		play.setDir(x*cos - y*sin + pi.posX, x*sin + y*cos + pi.posY);
+		
+		play.setThrust((int) (output.at(2, col) * THR_STRETCH));
+	}
 
 	/**
 	 * Build a Matrix to feed to the network, equivalent to the given input
@@ -212,6 +216,18 @@ public class GeNNController extends GeNN<GeNNController> implements Controller {
 	 */
 	public static Matrix buildInput(PlayInput pi) {
 		Matrix m = new Matrix(INPUT_SIZE, 1);
+		pi.updatePrimitives();
+		buildInput(pi, m, 0);
+		return m;
+	}
+	
+	/**
+	 * Same as {@link #buildInput(PlayInput)}, into one column of a batch of inputs.
+	 * @param pi Only the primitive fields are used
+	 * @param m
+	 * @param col
+	 */
+	public static void buildInput(PlayInput pi, Matrix m, int col) {
 		/*
 		 * To reduce the dimensionality of the input/simplify the task of the network:
 		 * 1. All checkpoints become relative to the pod. A consequence of this is that all
@@ -220,18 +236,18 @@ public class GeNNController extends GeNN<GeNNController> implements Controller {
 		 *    This should reduce complexity since the network doesn't have to take the pod's
 		 *    facing vector into account.
 		 */
-		Vec vel = pi.vel.rotate(-pi.angle).scale(1. / 700., 1. / 700.);
-		Vec nextCheck = worldToNN(pi, pi.nextCheck);
-		Vec followingCheck = worldToNN(pi, currentWorld.getCheckpoints().get(pi.nextCheckId));
-		
-		m.set(0, 0, vel.x);
-		m.set(1, 0, vel.y);
-		m.set(2, 0, nextCheck.x);
-		m.set(3, 0, nextCheck.y);
-		m.set(4, 0, followingCheck.x);
-		m.set(5, 0, followingCheck.y);
+		double cos = Math.cos(-pi.angle), sin = Math.sin(-pi.angle);
+		m.set(0, col, (pi.velX*cos - pi.velY*sin) * (1. / 700.));
+		m.set(1, col, (pi.velX*sin + pi.velY*cos) * (1. / 700.));
 		
-		return m;
+		double dx = pi.nextCheckX - pi.posX, dy = pi.nextCheckY - pi.posY;
+		double x = WORLD_TO_NN_SCALE * (dx*cos - dy*sin), y = WORLD_TO_NN_SCALE * (dx*sin + dy*cos);
+		m.set(2, col, x);
+		m.set(3, col, y);
+		// The "following check" inputs have always been looked up with nextCheckId, i.e. the same checkpoint.
+		// Trained networks depend on that, so it stays a copy of the next check.
+		m.set(4, col, x);
+		m.set(5, col, y);
 	}
 	
 	/**
@@ -249,53 +265,55 @@ public class GeNNController extends GeNN<GeNNController> implements Controller {
 	}
 
 	public void mutate(int op) {
+		RandomSource random = RandomSource.current();
 		Matrix m;
-		int layer = (int) (Math.random() * weights.length);
-		if(Math.random() > 0.5) {
+		int layer = random.nextInt(weights.length);
+		if(random.nextDouble() > 0.5) {
 			m = weights[layer];
 		} else {
 			m = biases[layer];
 		}
-		int idx = (int) (Math.random() * m.data.length);
+		int idx = random.nextInt(m.data.length);
 		
 		switch(op) {
 		case MUT_REPLACE:
-			m.data[idx] = (Math.random() - 0.5) * getInitialRange();
+			m.data[idx] = (random.nextDouble() - 0.5) * getInitialRange();
 			break;
 		case MUT_SIGN:
 			m.data[idx] *= -1;
 			break;
 		case MUT_MULT:
-			m.data[idx] *= (Math.random() + 0.5);
+			m.data[idx] *= (random.nextDouble() + 0.5);
 			break;
 		case MUT_ADD:
-			m.data[idx] += (Math.random() - .5);
+			m.data[idx] += (random.nextDouble() - .5);
 			break;
 		}
 	}
 
 	public GeNNController crossover(GeNNController partner, int op) {
+		RandomSource random = RandomSource.current();
 		GeNNController baby = new GeNNController(this);
 		Matrix b, p;
-		int layer = (int) (Math.random() * weights.length);
+		int layer = random.nextInt(weights.length);
 		
 		switch(op) {
 		case CROSS_WEIGHT:
-			if(Math.random() > 0.5) {
+			if(random.nextDouble() > 0.5) {
 				b = baby.weights[layer];
 				p = partner.weights[layer];
 			} else {
 				b = baby.biases[layer];
 				p = partner.biases[layer];
 			}
-			int idx = (int) (Math.random() * b.data.length);
+			int idx = random.nextInt(b.data.length);
 			b.data[idx] = p.data[idx];
 			break;
 		case CROSS_NEURON:
 			b = baby.weights[layer];
 			p = partner.weights[layer];
 			
-			int neuron = (int) (Math.random() * b.rows);
+			int neuron = random.nextInt(b.rows);
 			for(int col=0; col<b.cols; col++) {
 				b.set(neuron, col, p.at(neuron, col));
 			}
@@ -333,7 +351,7 @@ public class GeNNController extends GeNN<GeNNController> implements Controller {
 	 * @return
 	 */
 	public GeNNController climb() {
-		setupNextTest();
+		context.nextTest();
 		GeNNController best = this;
 		long bestFitness = fitness();
 		for(int op : mutations) {
@@ -355,30 +373,25 @@ public class GeNNController extends GeNN<GeNNController> implements Controller {
 	public void imitate(Controller hero) {
 		Gradient grad = null;
 		int batchSize = 0;
-		for(Vec vel : startingVelocities) {
-			for(double dir : startingDirections) {
-				PodInfo pod = currentWorld.getPod(wrapper);
-				pod.pos = currentStartingPos;
-				pod.vel = vel;
-				pod.angle = dir;
-				pod.laps = 0;
-				pod.nextCheck = 0;
-				
-				Gradient g = doImitate(pod, hero);
-				if(grad == null)
-					grad = g;
-				else
-					grad.plusEquals(g);
-				batchSize++;
-			}
+		List<PodInfo> scenarios = context.getScenarios();
+		for(int i=0; i<scenarios.size(); i++) {
+			Gradient g = doImitate(scenarios.get(i), hero);
+			if(grad == null)
+				grad = g;
+			else
+				grad.plusEquals(g);
+			batchSize++;
 			
-			apply(grad, .1 / batchSize);
-			grad = null;
+			// One batch per starting velocity
+			if((i+1) % context.scenariosPerVelocity() == 0) {
+				apply(grad, .1 / batchSize);
+				grad = null;
+			}
 		}
 	}
 	
 	public Gradient doImitate(PodInfo pod, Controller hero) {
-		PlayInput pi = pod.buildPlayInfo(currentWorld.getCheckpoints());
+		PlayInput pi = pod.buildPlayInfo(context.getWorld().getCheckpoints());
 		
 		// What would jesus do?
 		PlayOutput heroicPlay = hero.play(pi);
@@ -9,20 +9,22 @@ import java.util.Set;
  * Factory to generate instances of the GeNNController.
  */
 public class GeNNControllerFactory implements IndividualFactory<GeNNController> {
+	private final EvaluationContext context;
 	private final int[] layers;
 
 	/**
-	 * @param worlds The worlds to use for training.
+	 * @param context Where the controllers will be evaluated
 	 * @param nLayers The sizes of each hidden layer.
 	 */
-	public GeNNControllerFactory(int ...nLayers) {
+	public GeNNControllerFactory(EvaluationContext context, int ...nLayers) {
+		this.context = context;
 		this.layers = nLayers;
 	}
 	
 	public Iterable<GeNNController> generate(int num) {
 		Set<GeNNController> set = new HashSet<GeNNController>();
 		for(int i=0; i<num; i++) {
-			set.add(new GeNNController(layers));
+			set.add(new GeNNController(context, layers));
 		}
 		return set;
 	}
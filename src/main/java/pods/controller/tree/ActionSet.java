@@ -0,0 +1,69 @@
+package pods.controller.tree;
+
+import pods.controller.PlayOutput;
+import pods.world.PodWorld;
+
+/**
+ * The plays that a search can choose from: every combination of a change of angle and a thrust.
+ */
+public class ActionSet {
+	/**
+	 * Actions are numbered, and the ones tried from a node are kept in a 64-bit mask
+	 */
+	public static final int MAX_SIZE = 64;
+	/**
+	 * Five angles from -MAX_TURN to MAX_TURN, with half or full thrust. (Stopping is almost never worth it, and
+	 * offering it only spreads the search.)
+	 */
+	public static final ActionSet DEFAULT = new ActionSet(5, PlayOutput.MAX_THRUST / 2, PlayOutput.MAX_THRUST);
+
+	private final double[] turns;
+	private final int[] thrusts;
+
+	/**
+	 * @param turnSteps Number of angles to choose from, evenly spaced from -MAX_TURN to MAX_TURN (1 means only
+	 * going straight)
+	 * @param thrusts The thrusts to choose from
+	 */
+	public ActionSet(int turnSteps, int ...thrusts) {
+		if(turnSteps < 1 || thrusts.length < 1)
+			throw new IllegalArgumentException("No actions");
+		if(turnSteps * thrusts.length > MAX_SIZE)
+			throw new IllegalArgumentException("At most " + MAX_SIZE + " actions: " + turnSteps + "*" + thrusts.length);
+		turns = new double[turnSteps];
+		for(int i=0; i<turnSteps; i++)
+			turns[i] = turnSteps == 1 ? 0 : PodWorld.MAX_TURN * (2. * i / (turnSteps - 1) - 1);
+		this.thrusts = thrusts.clone();
+	}
+
+	/**
+	 * @param turns The changes of angle to choose from, in radians
+	 * @param thrusts The thrusts to choose from
+	 */
+	public ActionSet(double[] turns, int ...thrusts) {
+		if(turns.length < 1 || thrusts.length < 1)
+			throw new IllegalArgumentException("No actions");
+		if(turns.length * thrusts.length > MAX_SIZE)
+			throw new IllegalArgumentException("At most " + MAX_SIZE + " actions: " + turns.length + "*" + thrusts.length);
+		this.turns = turns.clone();
+		this.thrusts = thrusts.clone();
+	}
+
+	/**
+	 * Number of actions
+	 */
+	public int size() {
+		return turns.length * thrusts.length;
+	}
+
+	/**
+	 * The change of angle of the given action, in radians. Actions are ordered by thrust, then by turn.
+	 */
+	public double turn(int action) {
+		return turns[action % turns.length];
+	}
+
+	public int thrust(int action) {
+		return thrusts[action / turns.length];
+	}
+}
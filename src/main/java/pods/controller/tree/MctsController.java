@@ -0,0 +1,114 @@
+package pods.controller.tree;
+
+import pods.controller.BufferedController;
+import pods.controller.Controller;
+import pods.controller.PlayInput;
+import pods.controller.PlayOutput;
+import pods.controller.SimpleController;
+import pods.world.PodInfo;
+import pods.world.PodWorld;
+import util.RandomSource;
+
+/**
+ * Plays with a Monte Carlo tree search (see {@link MctsTree}): every turn, the search runs for a number of
+ * iterations or until the time budget is spent, and the most visited play is made. The subtree of that play is
+ * kept for the next turn, unless the pod isn't where the search expected it to be (e.g. after a collision).
+ * <br>The rollout policy can be any {@link BufferedController}, e.g. a {@link SimpleController}, a trained
+ * GeNNController (through {@link pods.controller.ControllerAdapter#of(Controller)}), or a
+ * {@link pods.controller.RandomController}.
+ * <br>Boost is not among the actions, since the engine doesn't simulate it.
+ */
+public class MctsController implements Controller {
+	public static final int DEFAULT_ITERATIONS = 2000;
+	/**
+	 * How far the pod can be from where the search expected it to be, for the tree to be kept
+	 */
+	private static final double POSITION_TOLERANCE = 2, VELOCITY_TOLERANCE = 1, ANGLE_TOLERANCE = 0.01;
+
+	private final PodWorld world;
+	private final ActionSet actions;
+	private final BufferedController policy;
+	private final RandomSource random;
+	private final int iterations;
+	private final long budgetNanos;
+	private MctsTree tree;
+	private int lastIterations = 0;
+
+	/**
+	 * Use the default actions, a SimpleController for the rollouts, and the default budget.
+	 * @param world The world to search in
+	 * @param addAsPlayer If false, the caller adds this (or a decorator around it) to the world
+	 */
+	public MctsController(PodWorld world, boolean addAsPlayer) {
+		this(world, addAsPlayer, ActionSet.DEFAULT, new SimpleController(), DEFAULT_ITERATIONS,
+				TreeSearchController.DEFAULT_BUDGET_NANOS, RandomSource.current().split());
+	}
+
+	/**
+	 * @param world The world to search in
+	 * @param addAsPlayer If false, the caller adds this (or a decorator around it) to the world
+	 * @param actions The plays to choose from
+	 * @param policy Plays the rollouts
+	 * @param iterations The maximum number of iterations per turn
+	 * @param budgetNanos The time to search for on each turn, or PodTree.NO_DEADLINE to always run all the
+	 * iterations
+	 * @param random Used by the search to choose the actions to try
+	 */
+	public MctsController(PodWorld world, boolean addAsPlayer, ActionSet actions, BufferedController policy,
+			int iterations, long budgetNanos, RandomSource random) {
+		if(iterations < 1)
+			throw new IllegalArgumentException("Needs at least one iteration: " + iterations);
+		this.world = world;
+		this.actions = actions;
+		this.policy = policy;
+		this.iterations = iterations;
+		this.budgetNanos = budgetNanos;
+		this.random = random;
+		if(addAsPlayer)
+			world.addPlayer(this);
+	}
+
+	public PlayOutput play(PlayInput pi) {
+		pi.updatePrimitives();
+		if(tree == null || !expected(tree.getPod(0), pi))
+			tree = new MctsTree(world, PodInfo.fromPlayInput(pi), actions, policy, random);
+
+		long deadline = budgetNanos == PodTree.NO_DEADLINE ? PodTree.NO_DEADLINE : System.nanoTime() + budgetNanos;
+		int i = 0;
+		// Always run one iteration, so there is a play to make
+		do {
+			tree.iterate();
+			i++;
+		} while(i < iterations && (deadline == PodTree.NO_DEADLINE || System.nanoTime() - deadline < 0));
+		lastIterations = i;
+
+		tree.advance(tree.bestChild());
+		return tree.getPlay(0, pi);
+	}
+
+	/**
+	 * Whether the pod is where the search expected it to be.
+	 */
+	private static boolean expected(PodInfo pod, PlayInput pi) {
+		return pod.nextCheck == pi.nextCheckId
+				&& Math.abs(pod.pos.x - pi.posX) < POSITION_TOLERANCE
+				&& Math.abs(pod.pos.y - pi.posY) < POSITION_TOLERANCE
+				&& Math.abs(pod.vel.x - pi.velX) < VELOCITY_TOLERANCE
+				&& Math.abs(pod.vel.y - pi.velY) < VELOCITY_TOLERANCE
+				&& Math.abs(PodWorld.inRange(pod.angle - pi.angle)) < ANGLE_TOLERANCE;
+	}
+
+	/**
+	 * The number of iterations run on the last turn
+	 */
+	public int getLastIterations() {
+		return lastIterations;
+	}
+
+	/**
+	 * The tree being searched, or null before the first turn
+	 */
+	public MctsTree getTree() {
+		return tree;
+	}
+}
@@ -0,0 +1,382 @@
+package pods.controller.tree;
+
+import java.util.Arrays;
+
+import pods.controller.BufferedController;
+import pods.controller.PlayInput;
+import pods.controller.PlayOutput;
+import pods.world.PodInfo;
+import pods.world.PodWorld;
+import util.RandomSource;
+import util.Vec;
+
+/**
+ * Monte Carlo tree search over the plays of a pod, one turn per level. Each iteration goes down the tree choosing
+ * children with UCT, adds one new child, plays a rollout from it with a policy (any {@link BufferedController})
+ * up to a fixed horizon after the root, and adds the score at the end of the rollout to every node on the way.
+ * Since all the scores are taken at the same time, deeper nodes don't get better scores just for being deeper.
+ * <br>A node only gets a new child when it has been visited enough (progressive widening: about
+ * {@link #WIDENING_FACTOR} * sqrt(visits) children), and the untried action is chosen at random, so large action
+ * sets don't spread the search too thin.
+ * <br>The scores are normalized with the lowest and highest ones seen since the root last advanced, so the
+ * exploration constant doesn't depend on the scale of {@link PodInfo#score(PodWorld)}.
+ * <br>The nodes are kept in a pool of parallel arrays, with the children of a node in a linked list. When the root
+ * advances, the subtree of the chosen child is copied to a second pool and the pools are swapped, so the pool
+ * is reused from turn to turn (see {@link PodTree}). The kept nodes lose their visits and scores: these were taken
+ * one turn earlier than the new rollouts will be, so they would not compare.
+ */
+public class MctsTree {
+	/**
+	 * UCT exploration constant, for scores normalized to [0, 1]
+	 */
+	public static final double DEFAULT_EXPLORATION = 0.5;
+	/**
+	 * Number of turns after the root at which the rollouts are scored
+	 */
+	public static final int DEFAULT_HORIZON = 10;
+	public static final int DEFAULT_CAPACITY = 1 << 13;
+	/**
+	 * A node can have up to WIDENING_FACTOR * visits^WIDENING_EXPONENT children
+	 */
+	public static final double WIDENING_FACTOR = 2, WIDENING_EXPONENT = 0.5;
+
+	private final PodWorld world;
+	private final ActionSet actions;
+	private final BufferedController policy;
+	private final RandomSource random;
+	private double exploration = DEFAULT_EXPLORATION;
+	private int horizon = DEFAULT_HORIZON;
+
+	private Pool nodes, spare;
+	private double minScore, maxScore;
+	/**
+	 * Nodes visited by the current iteration
+	 */
+	private int[] path = new int[16];
+	private final PlayInput in = new PlayInput();
+	private final PlayOutput out = new PlayOutput();
+
+	/**
+	 * @param world
+	 * @param pod The state at the root. The tree keeps it, so it must not be changed afterwards.
+	 * @param actions The plays to choose from
+	 * @param policy Plays the rollouts
+	 * @param random Used to choose the actions to try
+	 */
+	public MctsTree(PodWorld world, PodInfo pod, ActionSet actions, BufferedController policy, RandomSource random) {
+		this.world = world;
+		this.actions = actions;
+		this.policy = policy;
+		this.random = random;
+		nodes = new Pool(DEFAULT_CAPACITY);
+		spare = new Pool(DEFAULT_CAPACITY);
+		nodes.size = 1;
+		nodes.init(0, pod, -1);
+		resetScores();
+	}
+
+	public void setExploration(double exploration) {
+		this.exploration = exploration;
+	}
+
+	/**
+	 * @param horizon Number of turns after the root at which the rollouts are scored
+	 */
+	public void setHorizon(int horizon) {
+		this.horizon = horizon;
+	}
+
+	private void resetScores() {
+		minScore = Double.POSITIVE_INFINITY;
+		maxScore = Double.NEGATIVE_INFINITY;
+	}
+
+	/**
+	 * Run one iteration of the search: selection, expansion, rollout and backpropagation.
+	 */
+	public void iterate() {
+		Pool p = nodes;
+		int node = 0, length = 0;
+		path[length++] = node;
+		while(true) {
+			if(canExpand(node)) {
+				node = expand(node);
+			} else {
+				node = select(node);
+				if(node < 0)
+					break;
+			}
+			if(length == path.length)
+				path = Arrays.copyOf(path, 2 * length);
+			path[length++] = node;
+			if(p.visits[node] == 0)
+				break;
+		}
+
+		// Every score is taken at the same time, whatever the depth of the new node (one turn per level)
+		double score = rollout(p.state[path[length-1]], Math.max(0, horizon - (length - 1)));
+		minScore = Math.min(minScore, score);
+		maxScore = Math.max(maxScore, score);
+		for(int i=0; i<length; i++) {
+			p.visits[path[i]]++;
+			p.total[path[i]] += score;
+		}
+	}
+
+	private boolean canExpand(int node) {
+		Pool p = nodes;
+		int children = p.numChildren[node];
+		return children < actions.size()
+				&& children < Math.max(1, WIDENING_FACTOR * Math.pow(p.visits[node], WIDENING_EXPONENT));
+	}
+
+	/**
+	 * Add a child to the given node, with an action that hasn't been tried from it yet.
+	 * @return The new child
+	 */
+	private int expand(int node) {
+		// Pick the n-th untried action
+		int n = random.nextInt(actions.size() - nodes.numChildren[node]);
+		long tried = nodes.tried[node];
+		int action = 0;
+		while(true) {
+			if((tried & (1L << action)) == 0 && n-- == 0)
+				break;
+			action++;
+		}
+
+		PodInfo pod = world.stepTest(nodes.state[node], actions.turn(action), actions.thrust(action));
+
+		nodes.ensureCapacity(nodes.size + 1);
+		Pool p = nodes;
+		int child = p.size++;
+		p.init(child, pod, action);
+		p.nextSibling[child] = p.firstChild[node];
+		p.firstChild[node] = child;
+		p.numChildren[node]++;
+		p.tried[node] |= 1L << action;
+		return child;
+	}
+
+	/**
+	 * Choose the child with the best UCT value.
+	 * @return The child, or -1 if the node has no children
+	 */
+	private int select(int node) {
+		Pool p = nodes;
+		double range = maxScore > minScore ? maxScore - minScore : 1;
+		double logVisits = Math.log(p.visits[node]);
+		int best = -1;
+		double bestValue = Double.NEGATIVE_INFINITY;
+		for(int child=p.firstChild[node]; child>=0; child=p.nextSibling[child]) {
+			int n = p.visits[child];
+			if(n == 0)
+				return child;
+			double value = (p.total[child] / n - minScore) / range + exploration * Math.sqrt(logVisits / n);
+			if(value > bestValue) {
+				bestValue = value;
+				best = child;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Let the policy play from the given state.
+	 * @param turns The number of turns to play
+	 * @return The score at the end
+	 */
+	private double rollout(PodInfo pod, int turns) {
+		for(int i=0; i<turns; i++) {
+			pod.fillPlayInput(in, world.getGeometry());
+			policy.play(in, out);
+			pod = world.stepTest(pod, out);
+		}
+		return pod.score(world);
+	}
+
+	/**
+	 * The child of the root that was visited the most (ties go to the best average score).
+	 * @return The child, or -1 if the root has no children
+	 */
+	public int bestChild() {
+		Pool p = nodes;
+		int best = -1;
+		for(int child=p.firstChild[0]; child>=0; child=p.nextSibling[child]) {
+			if(best < 0 || p.visits[child] > p.visits[best]
+					|| (p.visits[child] == p.visits[best] && mean(child) > mean(best)))
+				best = child;
+		}
+		return best;
+	}
+
+	/**
+	 * Make the given node the new root, keeping its subtree and dropping everything else. The statistics of the
+	 * subtree start again from zero.
+	 * @param node Usually a child of the root
+	 */
+	public void advance(int node) {
+		Pool from = nodes, to = spare;
+		to.ensureCapacity(from.capacity());
+		// Breadth first: while a node is waiting for its children to be copied, its firstChild is in the old pool
+		from.copy(node, to, 0);
+		to.nextSibling[0] = -1;
+		int size = 1;
+		for(int i=0; i<size; i++) {
+			int last = -1;
+			for(int old=to.firstChild[i]; old>=0; old=from.nextSibling[old]) {
+				from.copy(old, to, size);
+				if(last < 0)
+					to.firstChild[i] = size;
+				else
+					to.nextSibling[last] = size;
+				to.nextSibling[size] = -1;
+				last = size++;
+			}
+		}
+		to.size = size;
+		// The old rollouts ended at the horizon of the old root
+		Arrays.fill(to.visits, 0, size, 0);
+		Arrays.fill(to.total, 0, size, 0);
+
+		Arrays.fill(from.state, 0, from.size, null);
+		from.size = 0;
+		spare = from;
+		nodes = to;
+		resetScores();
+	}
+
+	/**
+	 * With the given play input, generate the play output corresponding to the action of the given node.
+	 */
+	public PlayOutput getPlay(int node, PlayInput pi) {
+		int action = nodes.action[node];
+		PlayOutput play = new PlayOutput();
+		play.setThrust(action < 0 ? 0 : actions.thrust(action));
+		double angle = pi.angle + (action < 0 ? 0 : actions.turn(action));
+		play.setDir(pi.pos.plus(Vec.BIGUNIT.rotate(angle)));
+		return play;
+	}
+
+	/**
+	 * The state of the pod at the given node. This must not be changed.
+	 */
+	public PodInfo getPod(int node) {
+		return nodes.state[node];
+	}
+
+	/**
+	 * The index of the action that leads to the given node in the ActionSet, or -1 for the first root
+	 */
+	public int getAction(int node) {
+		return nodes.action[node];
+	}
+
+	public int visits(int node) {
+		return nodes.visits[node];
+	}
+
+	/**
+	 * The average score of the rollouts through the given node.
+	 */
+	public double mean(int node) {
+		return nodes.total[node] / nodes.visits[node];
+	}
+
+	/**
+	 * Number of nodes in the tree.
+	 */
+	public int size() {
+		return nodes.size;
+	}
+
+	/**
+	 * Number of nodes that the tree can hold before it has to grow.
+	 */
+	public int capacity() {
+		return nodes.capacity();
+	}
+
+	/**
+	 * Parallel arrays holding the nodes.
+	 */
+	private static class Pool {
+		PodInfo[] state;
+		/**
+		 * Index of the action leading to the node, number of visits, and number of children
+		 */
+		int[] action, visits, numChildren;
+		/**
+		 * The children of a node are a linked list: the first child, then each one's next sibling (-1 at the end)
+		 */
+		int[] firstChild, nextSibling;
+		/**
+		 * Bit mask of the actions that have a child
+		 */
+		long[] tried;
+		/**
+		 * Sum of the scores of the rollouts through the node
+		 */
+		double[] total;
+		int size = 0;
+
+		Pool(int capacity) {
+			state = new PodInfo[capacity];
+			action = new int[capacity];
+			visits = new int[capacity];
+			numChildren = new int[capacity];
+			firstChild = new int[capacity];
+			nextSibling = new int[capacity];
+			tried = new long[capacity];
+			total = new double[capacity];
+		}
+
+		int capacity() {
+			return state.length;
+		}
+
+		void init(int node, PodInfo pod, int act) {
+			state[node] = pod;
+			action[node] = act;
+			visits[node] = 0;
+			numChildren[node] = 0;
+			firstChild[node] = -1;
+			nextSibling[node] = -1;
+			tried[node] = 0;
+			total[node] = 0;
+		}
+
+		/**
+		 * Grow (doubling) to hold at least the given number of nodes, keeping the ones there are.
+		 */
+		void ensureCapacity(int needed) {
+			if(needed <= capacity())
+				return;
+			int capacity = capacity();
+			while(capacity < needed)
+				capacity *= 2;
+			state = Arrays.copyOf(state, capacity);
+			action = Arrays.copyOf(action, capacity);
+			visits = Arrays.copyOf(visits, capacity);
+			numChildren = Arrays.copyOf(numChildren, capacity);
+			firstChild = Arrays.copyOf(firstChild, capacity);
+			nextSibling = Arrays.copyOf(nextSibling, capacity);
+			tried = Arrays.copyOf(tried, capacity);
+			total = Arrays.copyOf(total, capacity);
+		}
+
+		/**
+		 * Copy node i of this pool to node j of the other one.
+		 */
+		void copy(int i, Pool other, int j) {
+			other.state[j] = state[i];
+			other.action[j] = action[i];
+			other.visits[j] = visits[i];
+			other.numChildren[j] = numChildren[i];
+			other.firstChild[j] = firstChild[i];
+			other.nextSibling[j] = nextSibling[i];
+			other.tried[j] = tried[i];
+			other.total[j] = total[i];
+		}
+	}
+}
@@ -0,0 +1,815 @@
+package pods.controller.tree;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import pods.controller.PlayInput;
+import pods.controller.PlayOutput;
+import pods.world.PodInfo;
+import pods.world.PodWorld;
+import pods.world.TrackGeometry;
+import util.Vec;
+
+/**
+ * Tree of the plays of a pod, for searching. Each node is the state of the pod after making its play (turn and
+ * thrust) for a number of steps, starting from the state of its parent. The number of steps depends on the
+ * level of the node, following a schedule: e.g. with 1,1,2,2,4 the plays are made for one turn at the first two
+ * levels, and the far future is simulated more coarsely (4 turns per level from the fifth one on). The default
+ * is {@link #ADVANCE_STEPS} at every level.
+ * <br>The nodes are kept in an arena of parallel primitive arrays, and referred to by their index. The children
+ * of a node are stored next to each other, so a node only needs the index of its first child (or -1 if it hasn't
+ * been expanded yet). The root is always node 0.
+ * <br>When the root advances to one of its children, the subtree of that child is copied (breadth first) into a
+ * second arena, and the two arenas are swapped: the siblings are dropped, and the arenas only grow when the kept
+ * subtree and its new level don't fit, so the memory used stays flat from turn to turn.
+ * <br>Each step gives exactly the same results as {@link PodWorld#stepTest(PodInfo, double, int)}.
+ */
+public class PodTree {
+	public static final int ADVANCE_STEPS = 2;
+	/**
+	 * ADVANCE_STEPS at every level
+	 */
+	public static final int[] DEFAULT_SCHEDULE = {ADVANCE_STEPS};
+	/**
+	 * Default maximum depth of the search (below the children of the root)
+	 */
+	public static final int DEPTH = 8;
+	/**
+	 * Deadline meaning that the search can take as long as it needs
+	 */
+	public static final long NO_DEADLINE = Long.MAX_VALUE;
+	/**
+	 * Number of nodes that the arenas start with: enough for a search at the default depth
+	 */
+	public static final int DEFAULT_CAPACITY = 1 << 15;
+	/**
+	 * Score returned when the search was stopped by the deadline
+	 */
+	private static final long TIMEOUT = Long.MIN_VALUE;
+	/**
+	 * Score returned when a parallel search ran out of room in the arena
+	 */
+	private static final long NO_ROOM = Long.MIN_VALUE + 1;
+	/**
+	 * Lower bound meaning that the search must find the exact score. Scores below it mean that the search was
+	 * stopped (TIMEOUT or NO_ROOM).
+	 */
+	private static final long NO_BOUND = Long.MIN_VALUE + 2;
+
+	/**
+	 * Each {@link Turn}, at full thrust
+	 */
+	public static final ActionSet DEFAULT_ACTIONS = new ActionSet(
+			new double[] {Turn.NEG.getDelta(), Turn.POS.getDelta(), Turn.ZERO.getDelta()}, PlayOutput.MAX_THRUST);
+
+	/**
+	 * Size of the cells in which states are considered the same by the transposition table: position, velocity,
+	 * and angle (about 6 degrees)
+	 */
+	public static final double POS_QUANTUM = 32, VEL_QUANTUM = 16, ANGLE_QUANTUM = 0.1;
+	/**
+	 * Nodes with fewer levels than this to search below them are cheaper to search than to look up
+	 */
+	public static final int MIN_TABLE_DEPTH = 2;
+
+	private final PodWorld world;
+	private final TrackGeometry track;
+	/**
+	 * The plays tried from each node, and their number
+	 */
+	private final ActionSet actions;
+	private final int branching;
+	/**
+	 * Highest thrust of the actions, for the bound on the distance a pod can travel
+	 */
+	private final int maxThrust;
+	/**
+	 * Number of steps of the plays at each level (the last one is used for all the deeper levels)
+	 */
+	private final int[] schedule;
+	private Arena nodes, spare;
+	/**
+	 * If set, scores already found under equivalent states are taken from here
+	 */
+	private TranspositionTable table;
+	/**
+	 * Set during a parallel search: the arena can't grow, since other threads are writing to it
+	 */
+	private volatile boolean concurrent = false;
+
+	/**
+	 * @param world
+	 * @param pod The state at the root
+	 */
+	public PodTree(PodWorld world, PodInfo pod) {
+		this(world, pod, DEFAULT_ACTIONS, DEFAULT_SCHEDULE, DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * @param world
+	 * @param pod The state at the root
+	 * @param actions The plays tried from each node
+	 * @param schedule The number of steps of the plays at each level, starting with the children of the root. The
+	 * last one is used for all the deeper levels.
+	 * @param capacity Number of nodes to allocate room for in each arena
+	 */
+	public PodTree(PodWorld world, PodInfo pod, ActionSet actions, int[] schedule, int capacity) {
+		if(schedule.length < 1)
+			throw new IllegalArgumentException("Empty schedule");
+		for(int steps : schedule)
+			if(steps < 1 || steps > Byte.MAX_VALUE)
+				throw new IllegalArgumentException("Steps out of range: " + steps);
+		this.world = world;
+		this.actions = actions;
+		this.schedule = schedule.clone();
+		track = world.getGeometry();
+		branching = actions.size();
+		int thrust = 0;
+		for(int i=0; i<branching; i++)
+			thrust = Math.max(thrust, actions.thrust(i));
+		maxThrust = thrust;
+		nodes = new Arena(Math.max(capacity, 1 + branching));
+		spare = new Arena(nodes.capacity());
+
+		nodes.size.set(1);
+		nodes.x[0] = pod.pos.x;
+		nodes.y[0] = pod.pos.y;
+		nodes.vx[0] = pod.vel.x;
+		nodes.vy[0] = pod.vel.y;
+		nodes.angle[0] = pod.angle;
+		nodes.headX[0] = pod.headingX();
+		nodes.headY[0] = pod.headingY();
+		nodes.nextCheck[0] = pod.nextCheck;
+		nodes.laps[0] = pod.laps;
+		nodes.action[0] = -1;
+		nodes.level[0] = 0;
+		nodes.steps[0] = 0;
+		nodes.firstChild[0] = -1;
+	}
+
+	/**
+	 * Number of steps of the plays at the given level (1 for the children of the root).
+	 */
+	public int stepsAt(int level) {
+		return schedule[Math.min(level, schedule.length) - 1];
+	}
+
+	/**
+	 * Number of turns from the given node to the nodes at the given depth under it.
+	 */
+	private int turnsBelow(int node, int depth) {
+		int turns = 0, level = nodes.level[node];
+		for(int l=level+1; l<=level+depth; l++)
+			turns += stepsAt(l);
+		return turns;
+	}
+
+	/**
+	 * Get the index of the first child of the given node, generating the children if needed. The others follow it.
+	 * @param node
+	 * @return The first child, or -1 if there is no room left for the children during a parallel search
+	 */
+	public int children(int node) {
+		Arena a = nodes;
+		if(a.firstChild[node] < 0) {
+			int first;
+			while((first = a.reserve(branching)) < 0) {
+				// Only a serial search can grow the arena: a parallel one is stopped and starts again (see bestChild)
+				if(concurrent)
+					return -1;
+				a.ensureCapacity(a.size.get() + branching);
+			}
+			for(int action=0; action<branching; action++)
+				generateChild(a, node, first + action, action);
+			a.firstChild[node] = first;
+		}
+		return a.firstChild[node];
+	}
+
+	private void generateChild(Arena a, int parent, int child, int action) {
+		a.copy(parent, a, child);
+		a.action[child] = (byte) action;
+		a.level[child] = a.level[parent] + 1;
+		a.steps[child] = (byte) stepsAt(a.level[child]);
+		a.firstChild[child] = -1;
+		for(int i=0; i<a.steps[child]; i++)
+			step(a, child, actions.turn(action), actions.thrust(action));
+	}
+
+	/**
+	 * Same as {@link PodWorld#stepTest(PodInfo, double, int)}, in place.
+	 */
+	private void step(Arena a, int i, double turnDelta, int thrust) {
+		// Rotation
+		double cos, sin;
+		if(turnDelta >= PodWorld.MAX_TURN) {
+			turnDelta = PodWorld.MAX_TURN;
+			cos = PodWorld.COS_MAX_TURN;
+			sin = PodWorld.SIN_MAX_TURN;
+		} else if(turnDelta <= -PodWorld.MAX_TURN) {
+			turnDelta = -PodWorld.MAX_TURN;
+			cos = PodWorld.COS_MAX_TURN;
+			sin = -PodWorld.SIN_MAX_TURN;
+		} else if(turnDelta == 0) {
+			cos = 1;
+			sin = 0;
+		} else {
+			cos = Math.cos(turnDelta);
+			sin = Math.sin(turnDelta);
+		}
+		double hx = a.headX[i], hy = a.headY[i];
+		a.headX[i] = hx*cos - hy*sin;
+		a.headY[i] = hx*sin + hy*cos;
+		a.angle[i] = PodWorld.inRange(a.angle[i] + turnDelta);
+
+		// Acceleration and movement
+		a.vx[i] = a.vx[i] + thrust * a.headX[i];
+		a.vy[i] = a.vy[i] + thrust * a.headY[i];
+		a.x[i] = a.x[i] + a.vx[i];
+		a.y[i] = a.y[i] + a.vy[i];
+
+		// Friction
+		a.vx[i] = PodWorld.FRICTION * a.vx[i];
+		a.vy[i] = PodWorld.FRICTION * a.vy[i];
+
+		// Checkpoints
+		double dx = track.checkX(a.nextCheck[i]) - a.x[i];
+		double dy = track.checkY(a.nextCheck[i]) - a.y[i];
+		if(dx*dx + dy*dy < PodWorld.CHECK_RADIUS*PodWorld.CHECK_RADIUS) {
+			if(++a.nextCheck[i] >= track.numChecks()) {
+				a.nextCheck[i] = 0;
+				a.laps[i]++;
+			}
+		}
+	}
+
+	/**
+	 * Same as {@link PodInfo#score(PodWorld)} for the pod at the given node.
+	 */
+	public long score(int node) {
+		Arena a = nodes;
+		return PodInfo.score(track, a.laps[node], a.nextCheck[node], a.x[node], a.y[node],
+				a.vx[node], a.vy[node], a.headX[node], a.headY[node]);
+	}
+
+	/**
+	 * Return the child of the root with the best score at the given depth, unless the deadline is passed first.
+	 * <br>The nodes expanded so far are kept, so searching again one level deeper only has to expand the new
+	 * level: this is what makes iterative deepening cheap.
+	 * @param depth The depth to which to search, below the children
+	 * @param deadline Value of System.nanoTime() at which to give up, or NO_DEADLINE
+	 * @return The index of the best child, or -1 if the search was stopped by the deadline
+	 */
+	public int bestChild(int depth, long deadline) {
+		int first = children(0);
+		int best = -1;
+		long bestScore = -1;
+		for(int child=first; child<first+branching; child++) {
+			// Once there is a best child, the others are only searched far enough to know that they can't beat it
+			long childScore = bestScore(child, depth, deadline, best < 0 ? NO_BOUND : bestScore);
+			if(childScore == TIMEOUT)
+				return -1;
+			if(best < 0 || bestScore < childScore) {
+				bestScore = childScore;
+				best = child;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Same as {@link #bestChild(int, long)}, with the subtrees searched in parallel on the given pool. The nodes
+	 * down to splitDepth levels below the root are split into tasks, and below that each subtree is searched
+	 * sequentially.
+	 * <br>At each split node, one child is searched first, and its score is the lower bound of the tasks of the
+	 * others, so they prune as in a sequential search. The tasks of siblings don't share bounds with each other,
+	 * so the result doesn't depend on the order in which they run, and is the same as a sequential search.
+	 * <br>The arena can't grow while the tasks are running: if it gets full, the tasks stop, the arena doubles,
+	 * and the search starts again, keeping the nodes already expanded.
+	 * @param depth The depth to which to search, below the children
+	 * @param deadline Value of System.nanoTime() at which to give up, or NO_DEADLINE
+	 * @param pool
+	 * @param splitDepth Number of levels of nodes that get their own task (1 for just the children of the root)
+	 * @return The index of the best child, or -1 if the search was stopped by the deadline
+	 */
+	public int bestChild(int depth, long deadline, ForkJoinPool pool, int splitDepth) {
+		int first = children(0);
+		// The first child goes first, so that it wins ties as in bestChild(int, long)
+		long firstScore = invoke(pool, new SiblingsTask(new int[] {first}, depth, deadline, splitDepth - 1,
+				NO_BOUND))[0];
+		if(firstScore == TIMEOUT)
+			return -1;
+		int[] others = new int[branching - 1];
+		for(int c=1; c<branching; c++)
+			others[c-1] = first + c;
+		long[] scores = invoke(pool, new SiblingsTask(others, depth, deadline, splitDepth - 1, firstScore));
+
+		int best = first;
+		long bestScore = firstScore;
+		for(int c=0; c<others.length; c++) {
+			if(scores[c] == TIMEOUT)
+				return -1;
+			// Children that can't beat the first one return at most its score
+			if(bestScore < scores[c]) {
+				bestScore = scores[c];
+				best = others[c];
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Run the task on the pool, growing the arena and running it again for as long as it runs out of room.
+	 * @return The scores of the nodes, or TIMEOUT
+	 */
+	private long[] invoke(ForkJoinPool pool, SiblingsTask task) {
+		while(true) {
+			long[] scores;
+			concurrent = true;
+			try {
+				scores = pool.invoke(task);
+			} finally {
+				concurrent = false;
+			}
+			if(!contains(scores, NO_ROOM) || contains(scores, TIMEOUT))
+				return scores;
+			nodes.ensureCapacity(nodes.capacity() + 1L);
+			task = task.again();
+		}
+	}
+
+	private static boolean contains(long[] scores, long score) {
+		for(long s : scores)
+			if(s == score)
+				return true;
+		return false;
+	}
+
+	/**
+	 * Best scores under some nodes, each searched in its own {@link SearchTask}, with the same lower bound.
+	 */
+	private class SiblingsTask extends RecursiveTask<long[]> {
+		private static final long serialVersionUID = 1L;
+		private final int[] siblings;
+		private final int depth, splitDepth;
+		private final long deadline, lowerBound;
+
+		SiblingsTask(int[] siblings, int depth, long deadline, int splitDepth, long lowerBound) {
+			this.siblings = siblings;
+			this.depth = depth;
+			this.deadline = deadline;
+			this.splitDepth = splitDepth;
+			this.lowerBound = lowerBound;
+		}
+
+		/**
+		 * A new task for the same search (a task can only run once)
+		 */
+		SiblingsTask again() {
+			return new SiblingsTask(siblings, depth, deadline, splitDepth, lowerBound);
+		}
+
+		@Override
+		protected long[] compute() {
+			SearchTask[] tasks = new SearchTask[siblings.length];
+			for(int i=0; i<siblings.length; i++)
+				tasks[i] = new SearchTask(siblings[i], depth, deadline, splitDepth, lowerBound);
+			invokeAll(tasks);
+			long[] scores = new long[siblings.length];
+			for(int i=0; i<siblings.length; i++)
+				scores[i] = tasks[i].getRawResult();
+			return scores;
+		}
+	}
+
+	/**
+	 * Best score under a node, as in {@link PodTree#bestScore(int, int, long, long)}, with the children split into
+	 * tasks down to splitDepth levels.
+	 */
+	private class SearchTask extends RecursiveTask<Long> {
+		private static final long serialVersionUID = 1L;
+		private final int node, depth, splitDepth;
+		private final long deadline, lowerBound;
+
+		SearchTask(int node, int depth, long deadline, int splitDepth, long lowerBound) {
+			this.node = node;
+			this.depth = depth;
+			this.deadline = deadline;
+			this.splitDepth = splitDepth;
+			this.lowerBound = lowerBound;
+		}
+
+		@Override
+		protected Long compute() {
+			if(splitDepth <= 0 || depth <= 1)
+				return bestScore(node, depth, deadline, lowerBound);
+			if(deadline != NO_DEADLINE && System.nanoTime() - deadline > 0)
+				return TIMEOUT;
+			if(lowerBound != NO_BOUND && upperBound(node, depth) <= lowerBound)
+				return lowerBound;
+			int first = children(node);
+			if(first < 0)
+				return NO_ROOM;
+
+			// The most promising child first, then the others in parallel, bounded by its score
+			int[] order = order(first);
+			long bestScore = new SearchTask(order[0], depth-1, deadline, splitDepth-1, lowerBound).compute();
+			if(bestScore < NO_BOUND)
+				return bestScore;
+			int[] others = Arrays.copyOfRange(order, 1, order.length);
+			long[] scores = new SiblingsTask(others, depth-1, deadline, splitDepth-1, Math.max(lowerBound, bestScore))
+					.compute();
+			for(long childScore : scores) {
+				if(childScore < NO_BOUND)
+					return childScore;
+				if(childScore > bestScore)
+					bestScore = childScore;
+			}
+			return bestScore;
+		}
+	}
+
+	/**
+	 * Get the best score of the leaves at the given depth under the node (or -1 if they are all lower).
+	 * <br>Branch and bound: a node whose {@link #upperBound(int, int)} is no more than the lower bound isn't
+	 * searched, and the children are searched best first (by their own score), so that the bound rises early.
+	 * @param lowerBound Only scores above this matter, or NO_BOUND
+	 * @return The exact best score if it is above lowerBound, or else a value no higher than lowerBound
+	 */
+	private long bestScore(int node, int depth, long deadline, long lowerBound) {
+		if(depth == 0)
+			return score(node);
+		if(deadline != NO_DEADLINE && System.nanoTime() - deadline > 0)
+			return TIMEOUT;
+
+		long key = 0;
+		if(table != null && depth >= MIN_TABLE_DEPTH) {
+			key = tableKey(node, depth);
+			long known = table.get(key, depth);
+			if(known != TranspositionTable.MISS)
+				return known;
+		}
+		if(lowerBound != NO_BOUND && upperBound(node, depth) <= lowerBound)
+			return lowerBound;
+
+		int first = children(node);
+		if(first < 0)
+			return NO_ROOM;
+		long bestScore = -1;
+		if(depth == 1) {
+			// The children are leaves: nothing to prune
+			for(int child=first; child<first+branching; child++)
+				bestScore = Math.max(bestScore, score(child));
+			return bestScore;
+		}
+
+		int[] order = order(first);
+		for(int child : order) {
+			long childScore = bestScore(child, depth-1, deadline, Math.max(lowerBound, bestScore));
+			if(childScore < NO_BOUND)
+				return childScore;
+			if(childScore > bestScore)
+				bestScore = childScore;
+		}
+
+		// Only exact scores can be reused
+		if(table != null && depth >= MIN_TABLE_DEPTH && bestScore > lowerBound)
+			table.put(key, depth, bestScore);
+		return bestScore;
+	}
+
+	/**
+	 * The children starting at the given one, from the highest score to the lowest (ties in order).
+	 */
+	private int[] order(int first) {
+		int[] order = new int[branching];
+		long[] scores = new long[branching];
+		for(int c=0; c<branching; c++) {
+			long score = score(first + c);
+			int i = c;
+			for(; i>0 && scores[i-1] < score; i--) {
+				order[i] = order[i-1];
+				scores[i] = scores[i-1];
+			}
+			order[i] = first + c;
+			scores[i] = score;
+		}
+		return order;
+	}
+
+	/**
+	 * An upper bound on the score of any node at the given depth under this one. Within the turns down to it,
+	 * the pod can't travel further than it would going straight at full thrust, so it can only pass the
+	 * checkpoints that are within that distance (one per turn at most), and can't get closer to the next one than
+	 * what is left of it.
+	 * @param node
+	 * @param depth
+	 * @return
+	 */
+	public long upperBound(int node, int depth) {
+		Arena a = nodes;
+		int turns = turnsBelow(node, depth);
+		double speed = Math.sqrt(a.vx[node]*a.vx[node] + a.vy[node]*a.vy[node]), reach = 0;
+		for(int t=0; t<turns; t++) {
+			reach += speed + maxThrust;
+			speed = PodWorld.FRICTION * (speed + maxThrust);
+		}
+
+		long checks = (long) a.laps[node] * track.numChecks() + a.nextCheck[node];
+		int check = a.nextCheck[node];
+		double dx = track.checkX(check) - a.x[node], dy = track.checkY(check) - a.y[node];
+		double dist = Math.sqrt(dx*dx + dy*dy);
+		for(int passes=0; passes<turns; passes++) {
+			// Distance to travel to be inside the checkpoint (with a margin for rounding)
+			double needed = dist - PodWorld.CHECK_RADIUS - 1;
+			if(needed >= reach)
+				break;
+			reach -= Math.max(0, needed);
+			checks++;
+			// From anywhere inside this checkpoint to the next one
+			dist = track.legLength(check) - PodWorld.CHECK_RADIUS;
+			check = track.following(check);
+		}
+
+		double closest = Math.max(0, dist - reach);
+		// The direction bonus is at most 200, and 1 more for rounding
+		return checks * PodInfo.CHECK_BONUS + (long) Math.ceil(Math.max(0, PodInfo.CHECK_BONUS - closest)) + 201;
+	}
+
+	/**
+	 * Hash of the state of the pod at the given node, with the position, velocity and angle rounded to cells of
+	 * {@link #POS_QUANTUM}, {@link #VEL_QUANTUM} and {@link #ANGLE_QUANTUM}. Nodes reached by different plays
+	 * that end up in the same cells have the same hash.
+	 */
+	public long stateHash(int node) {
+		Arena a = nodes;
+		long h = a.laps[node] * 0x10000L + a.nextCheck[node];
+		h = mix(h + Math.round(a.x[node] / POS_QUANTUM));
+		h = mix(h + Math.round(a.y[node] / POS_QUANTUM));
+		h = mix(h + Math.round(a.vx[node] / VEL_QUANTUM));
+		h = mix(h + Math.round(a.vy[node] / VEL_QUANTUM));
+		return mix(h + Math.round(a.angle[node] / ANGLE_QUANTUM));
+	}
+
+	/**
+	 * Key of the given node in the transposition table, when searched to the given depth. The same state doesn't
+	 * have the same score if the plays below it don't have the same steps, so these are part of the key, level by
+	 * level (only their order tells e.g. 1 then 2 from 2 then 1).
+	 */
+	long tableKey(int node, int depth) {
+		long h = stateHash(node);
+		int level = nodes.level[node];
+		for(int l=level+1; l<=level+depth; l++)
+			h = mix(h + stepsAt(l));
+		return h;
+	}
+
+	/**
+	 * The finalizer of SplitMix64
+	 */
+	private static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+
+	/**
+	 * Use the given transposition table (or none if null). The table can be shared between threads, and by
+	 * several trees on the same track.
+	 * <br>With a table, states in the same cells are treated as one, so the search is no longer exact, and in a
+	 * parallel search the result can depend on which equivalent state was stored first.
+	 * @param table
+	 */
+	public void setTranspositionTable(TranspositionTable table) {
+		this.table = table;
+	}
+
+	public TranspositionTable getTranspositionTable() {
+		return table;
+	}
+
+	/**
+	 * Make the given node the new root, keeping its subtree and dropping everything else.
+	 * @param node Usually a child of the root
+	 */
+	public void advance(int node) {
+		Arena from = nodes, to = spare;
+		to.ensureCapacity(from.capacity());
+		// Breadth first: while a node is waiting to be copied, its firstChild holds its index in the old arena
+		from.copy(node, to, 0);
+		to.firstChild[0] = node;
+		int size = 1;
+		for(int i=0; i<size; i++) {
+			to.level[i]--;
+			int oldFirst = from.firstChild[to.firstChild[i]];
+			// Children made with another number of steps than their new level has are dropped, and made again
+			if(oldFirst < 0 || from.steps[oldFirst] != stepsAt(to.level[i] + 1)) {
+				to.firstChild[i] = -1;
+				continue;
+			}
+			int first = size;
+			for(int c=0; c<branching; c++) {
+				from.copy(oldFirst + c, to, first + c);
+				to.firstChild[first + c] = oldFirst + c;
+			}
+			size += branching;
+			to.firstChild[i] = first;
+		}
+
+		to.size.set(size);
+		spare = from;
+		spare.size.set(0);
+		nodes = to;
+	}
+
+	/**
+	 * With the given play input, generate the play output corresponding to what the pod does at the given node.
+	 * @param node
+	 * @param pi
+	 * @return
+	 */
+	public PlayOutput getPlay(int node, PlayInput pi) {
+		PlayOutput play = new PlayOutput();
+		play.setThrust(getThrust(node));
+		play.setDir(pi.pos.plus(Vec.BIGUNIT.rotate(pi.angle + getTurnDelta(node))));
+		return play;
+	}
+
+	/**
+	 * The change of angle made to get to the given node (0 for the first root), in radians.
+	 */
+	public double getTurnDelta(int node) {
+		int action = nodes.action[node];
+		return action < 0 ? 0 : actions.turn(action);
+	}
+
+	/**
+	 * The thrust used to get to the given node (0 for the first root).
+	 */
+	public int getThrust(int node) {
+		int action = nodes.action[node];
+		return action < 0 ? 0 : actions.thrust(action);
+	}
+
+	/**
+	 * The number of steps of the play that leads to the given node (0 for the first root).
+	 */
+	public int getSteps(int node) {
+		return nodes.steps[node];
+	}
+
+	/**
+	 * Number of children of each node
+	 */
+	public int branching() {
+		return branching;
+	}
+
+	/**
+	 * Build the state of the pod at the given node.
+	 */
+	public PodInfo getPod(int node) {
+		Arena a = nodes;
+		PodInfo pod = new PodInfo();
+		pod.pos = new Vec(a.x[node], a.y[node]);
+		pod.vel = new Vec(a.vx[node], a.vy[node]);
+		pod.angle = a.angle[node];
+		pod.nextCheck = a.nextCheck[node];
+		pod.laps = a.laps[node];
+		return pod;
+	}
+
+	/**
+	 * Number of nodes in the tree.
+	 */
+	public int size() {
+		return nodes.size.get();
+	}
+
+	/**
+	 * Number of nodes that the tree can hold before it has to grow.
+	 */
+	public int capacity() {
+		return nodes.capacity();
+	}
+
+	public PodWorld getWorld() {
+		return world;
+	}
+
+	/**
+	 * Parallel arrays holding the nodes.
+	 */
+	private static class Arena {
+		/**
+		 * The largest array that the VM can allocate
+		 */
+		static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+		double[] x, y, vx, vy, angle, headX, headY;
+		int[] nextCheck, laps;
+		/**
+		 * Index of the first child, or -1 if the node hasn't been expanded
+		 */
+		int[] firstChild;
+		/**
+		 * Index of the action leading to the node in the ActionSet, or -1 for the first root
+		 */
+		byte[] action;
+		/**
+		 * Distance from the root: unlike the other small fields, it has no bound
+		 */
+		int[] level;
+		/**
+		 * Number of steps of the play leading to the node
+		 */
+		byte[] steps;
+		/**
+		 * Number of nodes used. Children are allocated atomically, so that subtrees can be expanded in parallel.
+		 */
+		final AtomicInteger size = new AtomicInteger();
+
+		Arena(int capacity) {
+			x = new double[capacity];
+			y = new double[capacity];
+			vx = new double[capacity];
+			vy = new double[capacity];
+			angle = new double[capacity];
+			headX = new double[capacity];
+			headY = new double[capacity];
+			nextCheck = new int[capacity];
+			laps = new int[capacity];
+			firstChild = new int[capacity];
+			action = new byte[capacity];
+			level = new int[capacity];
+			steps = new byte[capacity];
+		}
+
+		int capacity() {
+			return x.length;
+		}
+
+		/**
+		 * Allocate the given number of nodes, if there is room for them.
+		 * @return The first of the nodes, or -1 if the arena is full
+		 */
+		int reserve(int n) {
+			while(true) {
+				int used = size.get();
+				if(used + n > capacity())
+					return -1;
+				if(size.compareAndSet(used, used + n))
+					return used;
+			}
+		}
+
+		/**
+		 * Grow (doubling) to hold at least the given number of nodes, keeping the ones there are. This must not be
+		 * called while other threads use the arena.
+		 */
+		void ensureCapacity(long needed) {
+			if(needed <= capacity())
+				return;
+			if(needed > MAX_CAPACITY)
+				throw new IllegalStateException("Too many nodes: " + needed);
+			// In a long, so that doubling past 2^30 doesn't overflow
+			long doubled = capacity();
+			while(doubled < needed)
+				doubled *= 2;
+			int capacity = (int) Math.min(doubled, MAX_CAPACITY);
+			x = Arrays.copyOf(x, capacity);
+			y = Arrays.copyOf(y, capacity);
+			vx = Arrays.copyOf(vx, capacity);
+			vy = Arrays.copyOf(vy, capacity);
+			angle = Arrays.copyOf(angle, capacity);
+			headX = Arrays.copyOf(headX, capacity);
+			headY = Arrays.copyOf(headY, capacity);
+			nextCheck = Arrays.copyOf(nextCheck, capacity);
+			laps = Arrays.copyOf(laps, capacity);
+			firstChild = Arrays.copyOf(firstChild, capacity);
+			action = Arrays.copyOf(action, capacity);
+			level = Arrays.copyOf(level, capacity);
+			steps = Arrays.copyOf(steps, capacity);
+		}
+
+		/**
+		 * Copy node i of this arena to node j of the other one (which can be this one).
+		 */
+		void copy(int i, Arena other, int j) {
+			other.x[j] = x[i];
+			other.y[j] = y[i];
+			other.vx[j] = vx[i];
+			other.vy[j] = vy[i];
+			other.angle[j] = angle[i];
+			other.headX[j] = headX[i];
+			other.headY[j] = headY[i];
+			other.nextCheck[j] = nextCheck[i];
+			other.laps[j] = laps[i];
+			other.firstChild[j] = firstChild[i];
+			other.action[j] = action[i];
+			other.level[j] = level[i];
+			other.steps[j] = steps[i];
+		}
+	}
+}
@@ -0,0 +1,129 @@
+package pods.controller.tree;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size table of the best scores already found under a pod state, so that a search doesn't expand the same
+ * (or nearly the same) state again when different plays lead to it. States are given by a 64-bit hash (see
+ * {@link PodTree#stateHash(int)}), and each entry holds the best score found under the state, the depth that was
+ * searched, and the search (generation) that stored it.
+ * <br>The table is lock-free: each entry is two longs, the data and the key XOR the data. An entry that is being
+ * written by another thread at the same time doesn't match its key, so it is just a miss. Entries are grouped in
+ * buckets of {@link #BUCKET_SIZE}: a new entry replaces the one with the same key, or else the one from the oldest
+ * search, or else the shallowest one.
+ */
+public class TranspositionTable {
+	public static final int BUCKET_SIZE = 4;
+	/**
+	 * Returned by {@link #get(long, int)} when the table has no score for the state and depth
+	 */
+	public static final long MISS = Long.MIN_VALUE;
+
+	private static final int SCORE_BITS = 48, GENERATION_BITS = 8;
+	private static final long SCORE_MASK = (1L << SCORE_BITS) - 1, GENERATION_MASK = (1L << GENERATION_BITS) - 1;
+	private static final int MAX_DEPTH = (1 << (64 - SCORE_BITS - GENERATION_BITS)) - 1;
+
+	/**
+	 * Two longs per entry: key^data, then data
+	 */
+	private final AtomicLongArray entries;
+	private final int bucketMask;
+	private int generation = 1;
+
+	/**
+	 * @param log2Entries The table has 2^log2Entries entries (16 bytes each)
+	 */
+	public TranspositionTable(int log2Entries) {
+		if(log2Entries < 2 || log2Entries > 28)
+			throw new IllegalArgumentException("Between 2^2 and 2^28 entries: 2^" + log2Entries);
+		entries = new AtomicLongArray(2 << log2Entries);
+		bucketMask = (1 << log2Entries) / BUCKET_SIZE - 1;
+	}
+
+	/**
+	 * Get the score stored for the given state, searched to the given depth.
+	 * @param key Hash of the state
+	 * @param depth Must be at least 1
+	 * @return The score, or MISS
+	 */
+	public long get(long key, int depth) {
+		int first = bucket(key);
+		for(int i=first; i<first+2*BUCKET_SIZE; i+=2) {
+			long data = entries.get(i+1);
+			if((entries.get(i) ^ data) == key && depth(data) == depth)
+				return score(data);
+		}
+		return MISS;
+	}
+
+	/**
+	 * Store the score found under the given state.
+	 * @param key Hash of the state
+	 * @param depth The depth that was searched, at least 1
+	 * @param score
+	 */
+	public void put(long key, int depth, long score) {
+		if(depth < 1 || depth > MAX_DEPTH)
+			throw new IllegalArgumentException("Depth out of range: " + depth);
+		long data = ((long) depth << (SCORE_BITS + GENERATION_BITS))
+				| ((generation & GENERATION_MASK) << SCORE_BITS)
+				| (score & SCORE_MASK);
+
+		int first = bucket(key), replace = first;
+		long replaceRank = Long.MAX_VALUE;
+		for(int i=first; i<first+2*BUCKET_SIZE; i+=2) {
+			long old = entries.get(i+1);
+			if((entries.get(i) ^ old) == key) {
+				replace = i;
+				break;
+			}
+			// Entries from older searches go first, then the shallowest
+			long rank = (generation(old) == (generation & GENERATION_MASK) ? 1L << 32 : 0) + depth(old);
+			if(rank < replaceRank) {
+				replaceRank = rank;
+				replace = i;
+			}
+		}
+		entries.set(replace, key ^ data);
+		entries.set(replace+1, data);
+	}
+
+	/**
+	 * Start a new search: the entries stored so far are kept, but are replaced first.
+	 */
+	public void newSearch() {
+		generation++;
+	}
+
+	/**
+	 * Remove all the entries.
+	 */
+	public void clear() {
+		for(int i=0; i<entries.length(); i++)
+			entries.set(i, 0);
+	}
+
+	/**
+	 * Number of entries in the table
+	 */
+	public int size() {
+		return entries.length() / 2;
+	}
+
+	private int bucket(long key) {
+		return 2 * BUCKET_SIZE * ((int) (key >>> 32) & bucketMask);
+	}
+
+	private static int depth(long data) {
+		return (int) (data >>> (SCORE_BITS + GENERATION_BITS));
+	}
+
+	private static long generation(long data) {
+		return (data >>> SCORE_BITS) & GENERATION_MASK;
+	}
+
+	private static long score(long data) {
+		// Sign extension
+		return (data << (64 - SCORE_BITS)) >> (64 - SCORE_BITS);
+	}
+}
@@ -1,30 +1,186 @@
 package pods.controller.tree;
 
+import java.util.concurrent.ForkJoinPool;
+
 import pods.controller.Controller;
 import pods.controller.PlayInput;
 import pods.controller.PlayOutput;
-import pods.controller.tree.PodNode.Turn;
+import pods.world.PodInfo;
 import pods.world.PodWorld;
 
+/**
+ * Searches the tree of plays (see {@link PodTree}) by iterative deepening: the search goes one level deeper at a
+ * time until it reaches the maximum depth or runs out of time for the turn, and the best play found by the
+ * deepest complete search is used. Easy positions, where the tree kept from the previous turns is already deep,
+ * take little time, and hard ones stop at the budget.
+ * <br>When more than one core is available, the subtrees are searched in parallel on the common ForkJoinPool (see
+ * {@link PodTree#bestChild(int, long, ForkJoinPool, int)}), which gives the same plays, only deeper in the same time.
+ */
 public class TreeSearchController implements Controller {
+	/**
+	 * Time to search for on a turn, leaving a margin under the time limit of the game for the rest of the turn
+	 */
+	public static final long DEFAULT_BUDGET_NANOS = 50000000L;
+	/**
+	 * Number of levels of the tree split into parallel tasks: 27 subtrees, enough to keep 8 cores busy
+	 */
+	public static final int DEFAULT_SPLIT_DEPTH = 3;
+
 	private PodWorld world;
-	private PodNode root;
+	/**
+	 * The root of the tree is the play being made
+	 */
+	private PodTree tree;
 	private int timesToPlay = 0;
+	private final int maxDepth;
+	private final long budgetNanos;
+	private final ActionSet actions;
+	private final int[] schedule;
+	private int lastDepth = -1;
+	/**
+	 * If set, the search runs in parallel on this pool
+	 */
+	private ForkJoinPool pool = Runtime.getRuntime().availableProcessors() > 1 ? ForkJoinPool.commonPool() : null;
+	private int splitDepth = DEFAULT_SPLIT_DEPTH;
+	private TranspositionTable table;
 
+	/**
+	 * Create a controller and add it as a player of the world. The search starts from the real state of its pod.
+	 * @param world
+	 */
 	public TreeSearchController(PodWorld world) {
+		this(world, true);
+	}
+
+	/**
+	 * @param world The world to search in
+	 * @param addAsPlayer If false, the caller adds this (or a decorator around it) to the world, and the search
+	 * starts from the state given in the first PlayInput
+	 */
+	public TreeSearchController(PodWorld world, boolean addAsPlayer) {
+		this(world, addAsPlayer, PodTree.DEPTH, DEFAULT_BUDGET_NANOS);
+	}
+
+	/**
+	 * @param world The world to search in
+	 * @param addAsPlayer If false, the caller adds this (or a decorator around it) to the world
+	 * @param maxDepth The depth at which to stop deepening, even if there is time left
+	 * @param budgetNanos The time to search for on each turn, or PodTree.NO_DEADLINE to always search to maxDepth
+	 */
+	public TreeSearchController(PodWorld world, boolean addAsPlayer, int maxDepth, long budgetNanos) {
+		this(world, addAsPlayer, maxDepth, budgetNanos, PodTree.DEFAULT_ACTIONS, PodTree.DEFAULT_SCHEDULE);
+	}
+
+	/**
+	 * @param world The world to search in
+	 * @param addAsPlayer If false, the caller adds this (or a decorator around it) to the world
+	 * @param maxDepth The depth at which to stop deepening, even if there is time left
+	 * @param budgetNanos The time to search for on each turn, or PodTree.NO_DEADLINE to always search to maxDepth
+	 * @param actions The plays tried from each node
+	 * @param schedule The number of steps of the plays at each level of the tree (see
+	 * {@link PodTree#PodTree(PodWorld, PodInfo, ActionSet, int[], int)}). The play chosen at the first level is
+	 * made for as many turns as its steps, before searching again.
+	 */
+	public TreeSearchController(PodWorld world, boolean addAsPlayer, int maxDepth, long budgetNanos,
+			ActionSet actions, int[] schedule) {
+		if(maxDepth < 0)
+			throw new IllegalArgumentException("Negative depth: " + maxDepth);
 		this.world = world;
-		world.addPlayer(this);
-		root = new PodNode(world.getPod(this), Turn.ZERO, 0);
+		this.maxDepth = maxDepth;
+		this.budgetNanos = budgetNanos;
+		this.actions = actions;
+		this.schedule = schedule;
+		if(addAsPlayer) {
+			world.addPlayer(this);
+			tree = new PodTree(world, world.getPod(this), actions, schedule, PodTree.DEFAULT_CAPACITY);
+		}
 	}
 
 	public PlayOutput play(PlayInput pi) {
+		if(tree == null) {
+			tree = new PodTree(world, PodInfo.fromPlayInput(pi), actions, schedule, PodTree.DEFAULT_CAPACITY);
+			tree.setTranspositionTable(table);
+		}
+
 		if(timesToPlay == 0) {
-			root = root.bestPlay(world);
-			timesToPlay = PodNode.ADVANCE_STEPS;
+			tree.advance(search());
+			timesToPlay = tree.getSteps(0);
 		}
-		
+
 		timesToPlay--;
-		return root.getPlay(pi);
+		return tree.getPlay(0, pi);
+	}
+
+	/**
+	 * Deepen the search until maxDepth or the deadline. The first level is always searched fully, so there is
+	 * always a play to make.
+	 * @return The best child of the root at the deepest complete search
+	 */
+	private int search() {
+		long deadline = budgetNanos == PodTree.NO_DEADLINE ? PodTree.NO_DEADLINE : System.nanoTime() + budgetNanos;
+		if(table != null)
+			table.newSearch();
+		int best = tree.bestChild(0, PodTree.NO_DEADLINE);
+		lastDepth = 0;
+		for(int depth=1; depth<=maxDepth; depth++) {
+			// Shallow searches are too small to be worth splitting
+			int deeper = pool != null && depth > splitDepth
+					? tree.bestChild(depth, deadline, pool, splitDepth)
+					: tree.bestChild(depth, deadline);
+			if(deeper < 0)
+				break;
+			best = deeper;
+			lastDepth = depth;
+		}
+		return best;
+	}
+
+	/**
+	 * The depth reached by the last search, or -1 if there was none yet
+	 */
+	public int getLastDepth() {
+		return lastDepth;
+	}
+
+	/**
+	 * The tree being searched, or null before the first turn
+	 */
+	public PodTree getTree() {
+		return tree;
+	}
+
+	public int getMaxDepth() {
+		return maxDepth;
 	}
 
+	public long getBudgetNanos() {
+		return budgetNanos;
+	}
+
+	/**
+	 * Search in parallel on the given pool, or sequentially if it is null.
+	 * @param pool
+	 */
+	public void setPool(ForkJoinPool pool) {
+		this.pool = pool;
+	}
+
+	/**
+	 * Reuse the scores of equivalent states through the given table, or not at all if it is null.
+	 * @param table
+	 */
+	public void setTranspositionTable(TranspositionTable table) {
+		this.table = table;
+		if(tree != null)
+			tree.setTranspositionTable(table);
+	}
+
+	/**
+	 * @param splitDepth Number of levels of the tree that get their own task in a parallel search
+	 */
+	public void setSplitDepth(int splitDepth) {
+		if(splitDepth < 1)
+			throw new IllegalArgumentException("The split depth must be at least 1: " + splitDepth);
+		this.splitDepth = splitDepth;
+	}
 }
@@ -0,0 +1,28 @@
+package pods.controller.tree;
+
+import pods.world.PodWorld;
+
+/**
+ * The ways a pod can turn in the search tree: as far as possible either way, or not at all.
+ */
+public enum Turn {
+	NEG, POS, ZERO;
+
+	public double getAngle(double angle) {
+		return angle + getDelta();
+	}
+	
+	/**
+	 * The change of angle for this turn.
+	 */
+	public double getDelta() {
+		switch(this) {
+		case NEG:
+			return -PodWorld.MAX_TURN;
+		case POS:
+			return PodWorld.MAX_TURN;
+		case ZERO:
+		}
+		return 0;
+	}
+}
@@ -0,0 +1,274 @@
+package pods.world;
+
+import java.util.List;
+
+import pods.controller.BufferedController;
+import pods.controller.PlayInput;
+import pods.controller.PlayOutput;
+import util.Vec;
+
+/**
+ * Structure-of-arrays version of the {@link PodWorld} engine. The state of N pods is kept in primitive
+ * arrays, and all of them are stepped together in one loop that does not allocate anything. This is meant
+ * for simulating a lot of independent pods (e.g. fitness scenarios): the pods do NOT interact with each other.
+ * <br>Each step gives exactly the same results as {@link PodWorld#stepTest(PodInfo, PlayOutput)}.
+ * <br>When the build includes it (see the "vector" profile) and the jdk.incubator.vector module is available, the
+ * kinematics are stepped several pods at a time with the Java Vector API. This gives the same results, since
+ * the trigonometry is still done one pod at a time with Math, and the rest is the same operations in the same
+ * order. Set the system property {@value #VECTOR_PROPERTY} to false to force the scalar loop.
+ */
+public class BatchPodWorld {
+	public static final String VECTOR_PROPERTY = "pods.vector";
+	/**
+	 * The Vector API version of {@link #step()}, or null if it is not available
+	 */
+	private static final Stepper VECTOR_STEPPER = loadVectorStepper();
+
+	/**
+	 * Coordinates of the checkpoints. The last one is "home base", and new pods start there.
+	 */
+	final double[] checkX, checkY;
+	/**
+	 * State of each pod (see {@link PodInfo} for the meaning of each field)
+	 */
+	public final double[] posX, posY, velX, velY, angle;
+	public final int[] nextCheck, laps;
+	/**
+	 * The play for each pod: the point it wants to turn toward, and its thrust.
+	 */
+	public final double[] targetX, targetY;
+	public final int[] thrust;
+	/**
+	 * Acceleration of each pod on the current step (thrust along the new facing vector)
+	 */
+	final double[] accX, accY;
+
+	/**
+	 * Create a batch of pods on the same track as the given world.
+	 * @param world
+	 * @param numPods
+	 */
+	public BatchPodWorld(PodWorld world, int numPods) {
+		this(world.getCheckpoints(), numPods);
+	}
+
+	/**
+	 * Create a batch of pods, all starting at home base.
+	 * @param checks The checkpoints of the track
+	 * @param numPods Number of pods in the batch
+	 */
+	public BatchPodWorld(List<Vec> checks, int numPods) {
+		checkX = new double[checks.size()];
+		checkY = new double[checks.size()];
+		for(int i=0; i<checks.size(); i++) {
+			checkX[i] = checks.get(i).x;
+			checkY[i] = checks.get(i).y;
+		}
+
+		posX = new double[numPods];
+		posY = new double[numPods];
+		velX = new double[numPods];
+		velY = new double[numPods];
+		angle = new double[numPods];
+		nextCheck = new int[numPods];
+		laps = new int[numPods];
+		targetX = new double[numPods];
+		targetY = new double[numPods];
+		thrust = new int[numPods];
+		accX = new double[numPods];
+		accY = new double[numPods];
+		reset();
+	}
+
+	/**
+	 * Number of pods in this batch.
+	 */
+	public int size() {
+		return posX.length;
+	}
+
+	public int numChecks() {
+		return checkX.length;
+	}
+
+	public double checkX(int check) {
+		return checkX[check];
+	}
+
+	public double checkY(int check) {
+		return checkY[check];
+	}
+
+	/**
+	 * Set all pods back to their initial positions (at home base, not moving, facing east).
+	 */
+	public void reset() {
+		double homeX = checkX[checkX.length-1], homeY = checkY[checkY.length-1];
+		for(int i=0; i<posX.length; i++) {
+			posX[i] = homeX;
+			posY[i] = homeY;
+			velX[i] = 0;
+			velY[i] = 0;
+			angle[i] = 0;
+			nextCheck[i] = 0;
+			laps[i] = 0;
+		}
+	}
+
+	/**
+	 * Copy the state of the given pod into slot i.
+	 * @param i
+	 * @param pod
+	 */
+	public void setPod(int i, PodInfo pod) {
+		posX[i] = pod.pos.x;
+		posY[i] = pod.pos.y;
+		velX[i] = pod.vel.x;
+		velY[i] = pod.vel.y;
+		angle[i] = pod.angle;
+		nextCheck[i] = pod.nextCheck;
+		laps[i] = pod.laps;
+	}
+
+	/**
+	 * Build a PodInfo with the current state of the pod in slot i.
+	 * @param i
+	 * @return
+	 */
+	public PodInfo getPod(int i) {
+		PodInfo pod = new PodInfo();
+		pod.pos = new Vec(posX[i], posY[i]);
+		pod.vel = new Vec(velX[i], velY[i]);
+		pod.angle = angle[i];
+		pod.nextCheck = nextCheck[i];
+		pod.laps = laps[i];
+		return pod;
+	}
+
+	/**
+	 * Set the play that the pod in slot i will make on the next step.
+	 * @param i
+	 * @param play
+	 */
+	public void setPlay(int i, PlayOutput play) {
+		targetX[i] = play.getDirX();
+		targetY[i] = play.getDirY();
+		thrust[i] = play.getThrust();
+	}
+
+	/**
+	 * Fill the given input with the state of the pod in slot i (only the primitive fields).
+	 * @param i
+	 * @param in
+	 */
+	public void fillPlayInput(int i, PlayInput in) {
+		in.angle = angle[i];
+		in.posX = (int) posX[i];
+		in.posY = (int) posY[i];
+		in.velX = velX[i];
+		in.velY = velY[i];
+		in.nextCheckId = nextCheck[i];
+		in.laps = laps[i];
+		in.nextCheckX = checkX[nextCheck[i]];
+		in.nextCheckY = checkY[nextCheck[i]];
+	}
+
+	/**
+	 * Get the next play of every pod from the given controller. The same input and output are used for all
+	 * the pods, so this doesn't allocate anything (as long as the controller doesn't).
+	 * @param controller
+	 * @param in
+	 * @param out
+	 */
+	public void play(BufferedController controller, PlayInput in, PlayOutput out) {
+		for(int i=0; i<posX.length; i++) {
+			fillPlayInput(i, in);
+			controller.play(in, out);
+			setPlay(i, out);
+		}
+	}
+
+	/**
+	 * Move every pod forward one step, using the plays currently in {@link #targetX}, {@link #targetY} and {@link #thrust}.
+	 * This follows exactly the same rules as {@link PodWorld#stepTest(PodInfo, PlayOutput)}.
+	 */
+	public void step() {
+		if(VECTOR_STEPPER != null) {
+			VECTOR_STEPPER.step(this);
+			return;
+		}
+		for(int i=0; i<posX.length; i++) {
+			rotate(i);
+			move(i);
+		}
+	}
+
+	/**
+	 * Whether {@link #step()} uses the Vector API
+	 */
+	public static boolean isVectorized() {
+		return VECTOR_STEPPER != null;
+	}
+
+	/**
+	 * 1. Rotation, and the resulting acceleration (stored in accX, accY)
+	 */
+	void rotate(int i) {
+		double requestedAngle = Vec.angle(targetX[i] - posX[i], targetY[i] - posY[i]);
+		double a = PodWorld.getRealAngle(requestedAngle, angle[i]);
+		angle[i] = a;
+		accX[i] = thrust[i] * Math.cos(a);
+		accY[i] = thrust[i] * Math.sin(a);
+	}
+
+	/**
+	 * 2. Acceleration, 3. Movement, 4. Friction, and the checkpoint test
+	 */
+	void move(int i) {
+		double vx = velX[i] + accX[i];
+		double vy = velY[i] + accY[i];
+
+		double px = posX[i] + vx;
+		double py = posY[i] + vy;
+		posX[i] = px;
+		posY[i] = py;
+
+		velX[i] = PodWorld.FRICTION * vx;
+		velY[i] = PodWorld.FRICTION * vy;
+
+		double dx = checkX[nextCheck[i]] - px, dy = checkY[nextCheck[i]] - py;
+		if(dx*dx + dy*dy < PodWorld.CHECK_RADIUS*PodWorld.CHECK_RADIUS)
+			passCheck(i);
+	}
+
+	/**
+	 * The pod has reached its next checkpoint
+	 */
+	void passCheck(int i) {
+		if(++nextCheck[i] >= checkX.length) {
+			nextCheck[i] = 0;
+			laps[i]++;
+		}
+	}
+
+	/**
+	 * Another implementation of {@link BatchPodWorld#step()}.
+	 */
+	interface Stepper {
+		void step(BatchPodWorld world);
+	}
+
+	private static Stepper loadVectorStepper() {
+		if(!Boolean.parseBoolean(System.getProperty(VECTOR_PROPERTY, "true")))
+			return null;
+		try {
+			return (Stepper) Class.forName("pods.world.VectorBatchStepper").getDeclaredConstructor().newInstance();
+		} catch(Exception e) {
+			// Not compiled in: use the scalar loop
+			return null;
+		} catch(LinkageError e) {
+			// Compiled in, but the incubator module was not added at runtime
+			return null;
+		}
+	}
+}
@@ -0,0 +1,180 @@
+package pods.world;
+
+import java.util.List;
+
+import pods.controller.PlayOutput;
+import util.Vec;
+
+/**
+ * Integer version of {@link BatchPodWorld}, following the rounding of the real game: at the end of each turn,
+ * positions are rounded to the nearest integer and speeds are truncated. Positions, speeds, checkpoints and
+ * targets are all kept as ints, which is half the memory of double pairs.
+ * <br>The trigonometry uses StrictMath, and the rest is plain double arithmetic on integer inputs, so the results
+ * are the same on every JVM. Like BatchPodWorld, the pods do NOT interact with each other.
+ */
+public class IntBatchPodWorld {
+	/**
+	 * Coordinates of the checkpoints. The last one is "home base", and new pods start there.
+	 */
+	private final int[] checkX, checkY;
+	/**
+	 * State of each pod (see {@link PodInfo} for the meaning of each field). The angle is in radians.
+	 */
+	public final int[] posX, posY, velX, velY;
+	public final double[] angle;
+	public final int[] nextCheck, laps;
+	/**
+	 * The play for each pod: the point it wants to turn toward, and its thrust.
+	 */
+	public final int[] targetX, targetY, thrust;
+
+	/**
+	 * Create a batch of pods on the same track as the given world.
+	 * @param world
+	 * @param numPods
+	 */
+	public IntBatchPodWorld(PodWorld world, int numPods) {
+		this(world.getCheckpoints(), numPods);
+	}
+
+	/**
+	 * Create a batch of pods, all starting at home base.
+	 * @param checks The checkpoints of the track. They are rounded to integers.
+	 * @param numPods Number of pods in the batch
+	 */
+	public IntBatchPodWorld(List<Vec> checks, int numPods) {
+		checkX = new int[checks.size()];
+		checkY = new int[checks.size()];
+		for(int i=0; i<checks.size(); i++) {
+			checkX[i] = (int) Math.round(checks.get(i).x);
+			checkY[i] = (int) Math.round(checks.get(i).y);
+		}
+
+		posX = new int[numPods];
+		posY = new int[numPods];
+		velX = new int[numPods];
+		velY = new int[numPods];
+		angle = new double[numPods];
+		nextCheck = new int[numPods];
+		laps = new int[numPods];
+		targetX = new int[numPods];
+		targetY = new int[numPods];
+		thrust = new int[numPods];
+		reset();
+	}
+
+	/**
+	 * Number of pods in this batch.
+	 */
+	public int size() {
+		return posX.length;
+	}
+
+	public int numChecks() {
+		return checkX.length;
+	}
+
+	public int checkX(int check) {
+		return checkX[check];
+	}
+
+	public int checkY(int check) {
+		return checkY[check];
+	}
+
+	/**
+	 * Set all pods back to their initial positions (at home base, not moving, facing east).
+	 */
+	public void reset() {
+		int homeX = checkX[checkX.length-1], homeY = checkY[checkY.length-1];
+		for(int i=0; i<posX.length; i++) {
+			posX[i] = homeX;
+			posY[i] = homeY;
+			velX[i] = 0;
+			velY[i] = 0;
+			angle[i] = 0;
+			nextCheck[i] = 0;
+			laps[i] = 0;
+		}
+	}
+
+	/**
+	 * Copy the state of the given pod into slot i, with the position rounded and the speed truncated.
+	 * @param i
+	 * @param pod
+	 */
+	public void setPod(int i, PodInfo pod) {
+		posX[i] = (int) Math.round(pod.pos.x);
+		posY[i] = (int) Math.round(pod.pos.y);
+		velX[i] = (int) pod.vel.x;
+		velY[i] = (int) pod.vel.y;
+		angle[i] = pod.angle;
+		nextCheck[i] = pod.nextCheck;
+		laps[i] = pod.laps;
+	}
+
+	/**
+	 * Build a PodInfo with the current state of the pod in slot i.
+	 * @param i
+	 * @return
+	 */
+	public PodInfo getPod(int i) {
+		PodInfo pod = new PodInfo();
+		pod.pos = new Vec(posX[i], posY[i]);
+		pod.vel = new Vec(velX[i], velY[i]);
+		pod.angle = angle[i];
+		pod.nextCheck = nextCheck[i];
+		pod.laps = laps[i];
+		return pod;
+	}
+
+	/**
+	 * Set the play that the pod in slot i will make on the next step. The target is truncated, like the
+	 * commands sent to the game.
+	 * @param i
+	 * @param play
+	 */
+	public void setPlay(int i, PlayOutput play) {
+		targetX[i] = play.getDirX();
+		targetY[i] = play.getDirY();
+		thrust[i] = play.getThrust();
+	}
+
+	/**
+	 * Move every pod forward one step, using the plays currently in {@link #targetX}, {@link #targetY} and {@link #thrust}.
+	 */
+	public void step() {
+		final long radius2 = (long) (PodWorld.CHECK_RADIUS*PodWorld.CHECK_RADIUS);
+		for(int i=0; i<posX.length; i++) {
+			// 1. Rotation
+			double requestedAngle = StrictMath.atan2(targetY[i] - posY[i], targetX[i] - posX[i]);
+			double a = PodWorld.getRealAngle(requestedAngle, angle[i]);
+			angle[i] = a;
+
+			// 2. Acceleration
+			double vx = velX[i] + thrust[i] * StrictMath.cos(a);
+			double vy = velY[i] + thrust[i] * StrictMath.sin(a);
+
+			// 3. Movement, rounded
+			int px = (int) Math.round(posX[i] + vx);
+			int py = (int) Math.round(posY[i] + vy);
+			posX[i] = px;
+			posY[i] = py;
+
+			// 4. Friction, truncated
+			velX[i] = (int) (PodWorld.FRICTION * vx);
+			velY[i] = (int) (PodWorld.FRICTION * vy);
+
+			// Update next check
+			int check = nextCheck[i];
+			long dx = checkX[check] - px, dy = checkY[check] - py;
+			if(dx*dx + dy*dy < radius2) {
+				if(++check >= checkX.length) {
+					check = 0;
+					laps[i]++;
+				}
+				nextCheck[i] = check;
+			}
+		}
+	}
+}
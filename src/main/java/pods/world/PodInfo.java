@@ -23,6 +23,11 @@ public class PodInfo {
 	 * NOTE: in the real game, this is in degrees
 	 */
 	public double angle = 0;
+	/**
+	 * Facing vector of the pod, i.e. (cos(angle), sin(angle)), kept by the engine so that it doesn't need any
+	 * trigonometry to turn. This is only valid while headingAngle == angle, since the angle can be set directly.
+	 */
+	double headX = 1, headY = 0, headingAngle = 0;
 	/**
 	 * ID (index) of the next checkpoint
 	 */
@@ -32,6 +37,43 @@ public class PodInfo {
 	 */
 	public int laps = 0;
 	
+	/**
+	 * Set the angle of this pod, along with the corresponding facing vector.
+	 * @param angle
+	 * @param x Should be cos(angle)
+	 * @param y Should be sin(angle)
+	 */
+	void setHeading(double angle, double x, double y) {
+		this.angle = angle;
+		headingAngle = angle;
+		headX = x;
+		headY = y;
+	}
+	
+	/**
+	 * X coordinate of the unit vector that this pod is facing.
+	 */
+	public double headingX() {
+		syncHeading();
+		return headX;
+	}
+	
+	/**
+	 * Y coordinate of the unit vector that this pod is facing.
+	 */
+	public double headingY() {
+		syncHeading();
+		return headY;
+	}
+	
+	/**
+	 * Recalculate the facing vector if the angle has been changed directly.
+	 */
+	private void syncHeading() {
+		if(headingAngle != angle)
+			setHeading(angle, Math.cos(angle), Math.sin(angle));
+	}
+	
 	/**
 	 * Transform this pod (the real state of the pod) into the bare information that the
 	 * Controller actually gets to use.
@@ -43,27 +85,85 @@ public class PodInfo {
 		p.pos = pos.truncate();
 		p.nextCheck = checkpoints.get(nextCheck);
 		p.nextCheckId = nextCheck;
+		p.laps = laps;
 		p.vel = vel;
+		p.posX = (int) pos.x;
+		p.posY = (int) pos.y;
+		p.velX = vel.x;
+		p.velY = vel.y;
+		p.nextCheckX = p.nextCheck.x;
+		p.nextCheckY = p.nextCheck.y;
 		return p;
 	}
 	
+	/**
+	 * Rebuild the state of a pod from what a Controller gets to see: the reverse of
+	 * {@link #fillPlayInput(PlayInput, TrackGeometry)}. The position is truncated, as in the input.
+	 * @param pi Only the primitive fields are used
+	 * @return A new PodInfo
+	 */
+	public static PodInfo fromPlayInput(PlayInput pi) {
+		PodInfo pod = new PodInfo();
+		pod.pos = new Vec(pi.posX, pi.posY);
+		pod.vel = new Vec(pi.velX, pi.velY);
+		pod.angle = pi.angle;
+		pod.nextCheck = pi.nextCheckId;
+		pod.laps = pi.laps;
+		return pod;
+	}
+	
+	/**
+	 * Same as {@link #buildPlayInfo(List)}, into an existing PlayInput. Only the primitive fields are set.
+	 * @param p
+	 * @param track The geometry of the world
+	 */
+	public void fillPlayInput(PlayInput p, TrackGeometry track) {
+		p.angle = angle;
+		p.posX = (int) pos.x;
+		p.posY = (int) pos.y;
+		p.velX = vel.x;
+		p.velY = vel.y;
+		p.nextCheckId = nextCheck;
+		p.laps = laps;
+		p.nextCheckX = track.checkX(nextCheck);
+		p.nextCheckY = track.checkY(nextCheck);
+	}
+	
 	/**
 	 * Get a score for how far along this pod is. Higher values are better.
 	 * @param world
 	 * @return
 	 */
 	public long score(PodWorld world) {
+		return score(world.getGeometry(), laps, nextCheck, pos.x, pos.y, vel.x, vel.y, headingX(), headingY());
+	}
+	
+	/**
+	 * Same as {@link #score(PodWorld)}, for a pod given by its primitive state (e.g. in a search tree).
+	 * @param track
+	 * @param laps
+	 * @param nextCheck
+	 * @param x
+	 * @param y
+	 * @param velX
+	 * @param velY
+	 * @param headX The facing vector of the pod
+	 * @param headY
+	 * @return
+	 */
+	public static long score(TrackGeometry track, int laps, int nextCheck, double x, double y,
+			double velX, double velY, double headX, double headY) {
 		// Every checkpoint passed gives a bonus (equal to a rough estimate of the max distance between checks)
-		long score = (laps * world.getCheckpoints().size() + nextCheck) * CHECK_BONUS;
+		long score = (laps * track.numChecks() + nextCheck) * CHECK_BONUS;
 		
 		// After that, extra points for being closer to the following check
-		Vec check = world.getCheckpoints().get(nextCheck);
-		double dist = pos.minus(check).norm();
+		double dx = track.checkX(nextCheck) - x, dy = track.checkY(nextCheck) - y;
+		double dist = Math.sqrt(dx*dx + dy*dy);
 		if(dist < CHECK_BONUS)
 			score += CHECK_BONUS - dist;
 		
 		// Finally, we get a bonus if the velocity is pointing toward the target
-		score += dirBonus(world);
+		score += dirBonus(track, nextCheck, x, y, velX, velY, headX, headY);
 		
 		return score;
 	}
@@ -74,13 +174,16 @@ public class PodInfo {
 	 * @return
 	 */
 	public double dirBonus(PodWorld world) {
-		if(vel.equals(Vec.ORIGIN))
+		return dirBonus(world.getGeometry(), nextCheck, pos.x, pos.y, vel.x, vel.y, headingX(), headingY());
+	}
+	
+	private static double dirBonus(TrackGeometry track, int nextCheck, double x, double y,
+			double velX, double velY, double headX, double headY) {
+		if(Math.abs(velX) < Vec.PRECISION && Math.abs(velY) < Vec.PRECISION)
 			return 0;
-		Vec check = world.getCheckpoints().get(nextCheck);
-		Vec toCheck = check.minus(pos);
-		Vec dir = Vec.UNIT.rotate(angle);
+		double dx = track.checkX(nextCheck) - x, dy = track.checkY(nextCheck) - y;
 		
-		double dot = dir.dot(toCheck) / toCheck.norm();
+		double dot = (dx*headX + dy*headY) / Math.sqrt(dx*dx + dy*dy);
 		return dot * 200.;
 	}
 }
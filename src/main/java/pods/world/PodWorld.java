@@ -1,11 +1,15 @@
 package pods.world;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
+import pods.controller.BufferedController;
 import pods.controller.Controller;
+import pods.controller.ControllerAdapter;
 import pods.controller.PlayInput;
 import pods.controller.PlayOutput;
+import util.RandomSource;
 import util.Vec;
 
 public class PodWorld {
@@ -23,38 +27,85 @@ public class PodWorld {
 	public static final double CHECK_RADIUS = 600;
 	public static final double POD_RADIUS = 400;
 	public static final double MAX_TURN = Math.toRadians(18.);
+	/** Precomputed rotation by MAX_TURN */
+	public static final double COS_MAX_TURN = Math.cos(MAX_TURN), SIN_MAX_TURN = Math.sin(MAX_TURN);
 	public static final double FRICTION = 0.85;
+	/** Minimum impulse of a collision between two pods */
+	public static final double MIN_IMPULSE = 120;
 	
 	/**
 	 * The checkpoints. The last checkpoint is "home base", and new pods start there.
 	 */
 	private final List<Vec> checkpoints;
+	/**
+	 * Precomputed geometry of the checkpoints
+	 */
+	private final TrackGeometry geometry;
 	private List<PodInfo> pods = new ArrayList<PodInfo>();
 	private List<Controller> players = new ArrayList<Controller>();
+	/**
+	 * The players, as BufferedControllers (adapted if needed), and the input and output buffers of each one
+	 */
+	private List<BufferedController> buffered = new ArrayList<BufferedController>();
+	private List<PlayInput> inputs = new ArrayList<PlayInput>();
+	private List<PlayOutput> outputs = new ArrayList<PlayOutput>();
+	/**
+	 * The play made by each player on the last step (null before the first step)
+	 */
+	private List<PlayOutput> lastPlays = new ArrayList<PlayOutput>();
+	/**
+	 * If set, every step is recorded here
+	 */
+	private ReplayRecorder recorder;
+	/**
+	 * The pods, sorted along the x axis for the collision broadphase. This is kept from one step to the next,
+	 * since the order barely changes between two turns. Set to null whenever the list of pods changes.
+	 */
+	private PodInfo[] sweep;
 	
 	/**
 	 * Create a world with a number of checkpoints between MAX and MIN.
 	 */
 	public PodWorld() {
-		this((int) (Math.random() * (MAX_CHECKS - MIN_CHECKS) + MIN_CHECKS));
+		this(RandomSource.current());
+	}
+	
+	/**
+	 * Create a world with a number of checkpoints between MAX and MIN.
+	 * @param random Source of randomness for the number and position of the checkpoints
+	 */
+	public PodWorld(RandomSource random) {
+		this(random.nextInt(MAX_CHECKS - MIN_CHECKS) + MIN_CHECKS, random);
 	}
 	
 	public PodWorld(int numChecks) {
-		checkpoints = new ArrayList<Vec>(numChecks);
+		this(numChecks, RandomSource.current());
+	}
+	
+	public PodWorld(int numChecks, RandomSource random) {
+		List<Vec> checks = new ArrayList<Vec>(numChecks);
 		for(int i=0; i<numChecks; i++) {
-			checkpoints.add(generateCheckpoint(checkpoints));
+			checks.add(generateCheckpoint(checks, random));
 		}
+		checkpoints = Collections.unmodifiableList(checks);
+		geometry = new TrackGeometry(checkpoints);
 	}
 	
 	public PodWorld(List<Vec> checks) {
-		checkpoints = new ArrayList<Vec>(checks);
+		checkpoints = Collections.unmodifiableList(new ArrayList<Vec>(checks));
+		geometry = new TrackGeometry(checkpoints);
 	}
 	
 	public void addPlayer(Controller c) {
 		players.add(c);
+		buffered.add(ControllerAdapter.of(c));
+		inputs.add(new PlayInput());
+		outputs.add(new PlayOutput());
+		lastPlays.add(null);
 		PodInfo p = new PodInfo();
 		p.pos = checkpoints.get(checkpoints.size()-1);
 		pods.add(p);
+		sweep = null;
 	}
 
 	/**
@@ -65,9 +116,19 @@ public class PodWorld {
 	 * @return
 	 */
 	public static Vec generateCheckpoint(List<Vec> checks) {
+		return generateCheckpoint(checks, RandomSource.current());
+	}
+	
+	/**
+	 * Same as {@link #generateCheckpoint(List)}, using the given source of randomness.
+	 * @param checks Current list of checkpoints
+	 * @param random
+	 * @return
+	 */
+	public static Vec generateCheckpoint(List<Vec> checks, RandomSource random) {
 		Vec check;
 		do {
-			check = new Vec(Math.random() * WORLD_X, Math.random() * WORLD_Y).truncate();
+			check = new Vec(random.nextDouble() * WORLD_X, random.nextDouble() * WORLD_Y).truncate();
 		} while(!checkIsOK(check, checks));
 		return check;
 	}
@@ -87,15 +148,109 @@ public class PodWorld {
 	}
 	
 	/**
-	 * Move the simulation forward one step.
+	 * Move the simulation forward one step. Each player gets the same PlayInput and PlayOutput every turn.
 	 */
 	public void step() {
 		for(int i=0; i<pods.size(); i++) {
 			PodInfo pod = pods.get(i);
-			PlayInput pi = pod.buildPlayInfo(checkpoints);
-			PlayOutput play = players.get(i).play(pi);
-			update(pod, pod, play);
+			PlayInput pi = inputs.get(i);
+			PlayOutput play = outputs.get(i);
+			pod.fillPlayInput(pi, geometry);
+			buffered.get(i).play(pi, play);
+			lastPlays.set(i, play);
+			move(pod, pod, play);
 		}
+		
+		resolveCollisions();
+		
+		for(PodInfo pod : pods)
+			endTurn(pod);
+		
+		if(recorder != null)
+			recorder.record(this);
+	}
+	
+	/**
+	 * Record every following step with the given recorder.
+	 * @param recorder The recorder to use, or null to stop recording.
+	 */
+	public void setRecorder(ReplayRecorder recorder) {
+		this.recorder = recorder;
+	}
+	
+	/**
+	 * Get the play that the pod at the given index made on the last step.
+	 * @param pod Index of the pod (as in {@link #getPods()})
+	 * @return The play, or null if there hasn't been any step yet. It is overwritten by the next step.
+	 */
+	public PlayOutput getLastPlay(int pod) {
+		return lastPlays.get(pod);
+	}
+	
+	/**
+	 * Make the pods that have run into each other rebound. The broadphase is a sort-and-sweep along the x axis:
+	 * only pods whose x coordinates are closer than two radii are actually tested against each other.
+	 */
+	private void resolveCollisions() {
+		if(pods.size() < 2)
+			return;
+		if(sweep == null)
+			sweep = pods.toArray(new PodInfo[pods.size()]);
+		
+		// Insertion sort: nearly linear, since the pods were already sorted last turn
+		for(int i=1; i<sweep.length; i++) {
+			PodInfo pod = sweep[i];
+			int j = i - 1;
+			while(j >= 0 && sweep[j].pos.x > pod.pos.x) {
+				sweep[j+1] = sweep[j];
+				j--;
+			}
+			sweep[j+1] = pod;
+		}
+		
+		for(int i=0; i<sweep.length; i++) {
+			PodInfo a = sweep[i];
+			for(int j=i+1; j<sweep.length && sweep[j].pos.x - a.pos.x < 2*POD_RADIUS; j++) {
+				collide(a, sweep[j]);
+			}
+		}
+	}
+	
+	/**
+	 * If the two pods overlap and are moving toward each other, make them rebound (elastic collision with
+	 * a minimum impulse of {@link #MIN_IMPULSE}), and push them apart so that they are just touching.
+	 * @param a
+	 * @param b
+	 * @return True if there was a collision.
+	 */
+	public static boolean collide(PodInfo a, PodInfo b) {
+		Vec normal = b.pos.minus(a.pos);
+		double dist2 = normal.norm2();
+		// Two pods on exactly the same spot (e.g. at the start) have no direction to rebound in
+		if(dist2 == 0 || dist2 >= 4*POD_RADIUS*POD_RADIUS)
+			return false;
+		
+		double product = a.vel.minus(b.vel).dot(normal);
+		if(product <= 0)
+			return false;
+		
+		// Both pods have the same mass, so the mass coefficient (m1+m2)/(m1*m2) is 2
+		Vec force = normal.times(product / (dist2 * 2));
+		a.vel = a.vel.minus(force);
+		b.vel = b.vel.plus(force);
+		
+		double impulse = force.norm();
+		if(impulse < MIN_IMPULSE)
+			force = force.times(MIN_IMPULSE / impulse);
+		a.vel = a.vel.minus(force);
+		b.vel = b.vel.plus(force);
+		
+		// Separate the pods
+		double dist = Math.sqrt(dist2);
+		Vec shift = normal.times((2*POD_RADIUS - dist) / (2*dist));
+		a.pos = a.pos.minus(shift);
+		b.pos = b.pos.plus(shift);
+		return true;
 	}
 	
 	/**
@@ -109,6 +264,166 @@ public class PodWorld {
 		update(pod, output, play);
 		return output;
 	}
+	
+	/**
+	 * Test what would happen if the pod were to turn by the given angle and thrust, for one step. This skips the
+	 * round trip through a target point: turning by 0 or +/-{@link #MAX_TURN} requires no trigonometry at all.
+	 * @param pod
+	 * @param turnDelta The change of angle, in radians (clamped to +/-MAX_TURN)
+	 * @param thrust
+	 * @return
+	 */
+	public PodInfo stepTest(PodInfo pod, double turnDelta, int thrust) {
+		PodInfo output = new PodInfo();
+		rotate(pod, output, turnDelta);
+		accelerate(pod, output, thrust);
+		endTurn(output);
+		return output;
+	}
+
+	/**
+	 * Fast-forward the given pod by several turns, in constant time. On the first turn, the pod rotates toward the
+	 * target of the play, just as in {@link #stepTest(PodInfo, PlayOutput)}; after that, it keeps the same heading
+	 * and thrust for all the remaining turns.
+	 * <br>Under a fixed heading and thrust, the velocity follows a geometric series in {@link #FRICTION}, so the
+	 * position after k turns has a closed form. The checkpoints crossed on the way are found by bisecting the turns,
+	 * using a swept segment-vs-circle test to skip the stretches that cannot possibly reach the next checkpoint.
+	 * @param pod Starting state of the pod
+	 * @param play The play to make on every turn
+	 * @param turns Number of turns to advance
+	 * @return The state of the pod after the given number of turns
+	 */
+	public PodInfo advance(PodInfo pod, PlayOutput play, int turns) {
+		if(turns < 1)
+			throw new IllegalArgumentException("Cannot advance by " + turns + " turns");
+		
+		PodInfo output = new PodInfo();
+		double requestedAngle = Vec.angle(play.getDirX() - pod.pos.x, play.getDirY() - pod.pos.y);
+		double angle = getRealAngle(requestedAngle, pod.angle);
+		output.setHeading(angle, Math.cos(angle), Math.sin(angle));
+		return advance(pod, output, play.getThrust(), turns);
+	}
+	
+	/**
+	 * Same as {@link #advance(PodInfo, PlayOutput, int)}, but the pod turns by the given angle on the first turn
+	 * (as in {@link #stepTest(PodInfo, double, int)}) instead of toward a target point.
+	 * @param pod Starting state of the pod
+	 * @param turnDelta The change of angle on the first turn, in radians (clamped to +/-MAX_TURN)
+	 * @param thrust
+	 * @param turns Number of turns to advance
+	 * @return The state of the pod after the given number of turns
+	 */
+	public PodInfo advance(PodInfo pod, double turnDelta, int thrust, int turns) {
+		if(turns < 1)
+			throw new IllegalArgumentException("Cannot advance by " + turns + " turns");
+		
+		PodInfo output = new PodInfo();
+		rotate(pod, output, turnDelta);
+		return advance(pod, output, thrust, turns);
+	}
+	
+	/**
+	 * @param pod Starting state of the pod
+	 * @param output Must already have its heading set
+	 */
+	private PodInfo advance(PodInfo pod, PodInfo output, int thrust, int turns) {
+		Trajectory traj = new Trajectory(pod, output.headX, output.headY, thrust);
+		output.nextCheck = pod.nextCheck;
+		output.laps = pod.laps;
+		int turn = 0;
+		while(turn < turns) {
+			Vec check = checkpoints.get(output.nextCheck);
+			turn = traj.firstTurnInside(check.x, check.y, turn, turns);
+			if(turn < 0)
+				break;
+			if(++output.nextCheck >= checkpoints.size()) {
+				output.nextCheck = 0;
+				output.laps++;
+			}
+		}
+		
+		output.pos = new Vec(traj.x(turns), traj.y(turns));
+		output.vel = traj.vel(turns);
+		return output;
+	}
+	
+	/**
+	 * Closed form of the trajectory of a pod with a constant heading and thrust. With the acceleration a, the
+	 * starting position p and velocity v, the position after k turns is:
+	 * <pre>p + k*a/(1-F) + (1-F^k) * (v - a*F/(1-F)) / (1-F)</pre>
+	 */
+	private static final class Trajectory {
+		private final double px, py, vx, vy, ax, ay, ux, uy, dx, dy, dNorm;
+		
+		Trajectory(PodInfo pod, double headX, double headY, int thrust) {
+			px = pod.pos.x;
+			py = pod.pos.y;
+			vx = pod.vel.x;
+			vy = pod.vel.y;
+			ax = thrust * headX;
+			ay = thrust * headY;
+			ux = ax / (1 - FRICTION);
+			uy = ay / (1 - FRICTION);
+			dx = (vx - ux*FRICTION) / (1 - FRICTION);
+			dy = (vy - uy*FRICTION) / (1 - FRICTION);
+			dNorm = Math.sqrt(dx*dx + dy*dy);
+		}
+		
+		double x(int turn) {
+			return px + turn*ux + (1 - Math.pow(FRICTION, turn))*dx;
+		}
+		
+		double y(int turn) {
+			return py + turn*uy + (1 - Math.pow(FRICTION, turn))*dy;
+		}
+		
+		/**
+		 * Velocity after the given number of turns (friction included)
+		 */
+		Vec vel(int turn) {
+			double fk = Math.pow(FRICTION, turn);
+			double accel = FRICTION * (1 - fk) / (1 - FRICTION);
+			return new Vec(fk*vx + accel*ax, fk*vy + accel*ay);
+		}
+		
+		/**
+		 * Find the first turn in (from, to] at the end of which the pod is inside the given checkpoint.
+		 * @return The turn, or -1 if the pod never ends a turn inside the checkpoint.
+		 */
+		int firstTurnInside(double cx, double cy, int from, int to) {
+			double x0 = x(from), y0 = y(from);
+			if(to - from == 1) {
+				double ex = cx - x(to), ey = cy - y(to);
+				return (ex*ex + ey*ey < CHECK_RADIUS*CHECK_RADIUS ? to : -1);
+			}
+			
+			// Between the two turns, the trajectory strays from the segment by at most |(F^from - F^to) * d|
+			double slack = (Math.pow(FRICTION, from) - Math.pow(FRICTION, to)) * dNorm;
+			if(segmentDist2(cx, cy, x0, y0, x(to), y(to)) >= (CHECK_RADIUS + slack)*(CHECK_RADIUS + slack))
+				return -1;
+			
+			int mid = (from + to) / 2;
+			int turn = firstTurnInside(cx, cy, from, mid);
+			if(turn < 0)
+				turn = firstTurnInside(cx, cy, mid, to);
+			return turn;
+		}
+		
+		/**
+		 * Square of the distance from (cx,cy) to the segment from (x0,y0) to (x1,y1).
+		 */
+		private static double segmentDist2(double cx, double cy, double x0, double y0, double x1, double y1) {
+			double sx = x1 - x0, sy = y1 - y0;
+			double len2 = sx*sx + sy*sy;
+			double t = (len2 == 0 ? 0 : ((cx - x0)*sx + (cy - y0)*sy) / len2);
+			if(t < 0)
+				t = 0;
+			else if(t > 1)
+				t = 1;
+			double ex = cx - (x0 + t*sx), ey = cy - (y0 + t*sy);
+			return ex*ex + ey*ey;
+		}
+	}
 
 	/**
 	 * Fill the given output state with the result of running the given play for one step, from the given input state.
@@ -117,6 +432,17 @@ public class PodWorld {
 	 * @param play The play to make
 	 */
 	private void update(PodInfo inputState, PodInfo outputState, PlayOutput play) {
+		move(inputState, outputState, play);
+		endTurn(outputState);
+	}
+	
+	/**
+	 * First part of {@link #update(PodInfo, PodInfo, PlayOutput)}: rotation, acceleration and movement.
+	 * @param inputState
+	 * @param outputState
+	 * @param play
+	 */
+	private void move(PodInfo inputState, PodInfo outputState, PlayOutput play) {
 		/*
 On each turn the pods movements are computed this way:
 
@@ -132,27 +458,74 @@ A shield multiplies the Pod mass by 10.
 The provided angle is absolute. 0 means facing EAST while 90 means facing SOUTH.
 		 */
 		// 1. Rotation
-		double requestedAngle = play.getDir().minus(inputState.pos).getAngle();
+		double requestedAngle = Vec.angle(play.getDirX() - inputState.pos.x, play.getDirY() - inputState.pos.y);
 		double angle = getRealAngle(requestedAngle, inputState.angle);
-		outputState.angle = angle;
+		outputState.setHeading(angle, Math.cos(angle), Math.sin(angle));
+		
+		accelerate(inputState, outputState, play.getThrust());
+	}
+	
+	/**
+	 * Rotation by a given angle instead of toward a target: the facing vector of the input is rotated directly,
+	 * using the precomputed cos/sin for the usual cases.
+	 * @param inputState
+	 * @param outputState Will get the new angle and facing vector
+	 * @param turnDelta The change of angle, in radians (clamped to +/-MAX_TURN)
+	 */
+	private static void rotate(PodInfo inputState, PodInfo outputState, double turnDelta) {
+		double cos, sin;
+		if(turnDelta >= MAX_TURN) {
+			turnDelta = MAX_TURN;
+			cos = COS_MAX_TURN;
+			sin = SIN_MAX_TURN;
+		} else if(turnDelta <= -MAX_TURN) {
+			turnDelta = -MAX_TURN;
+			cos = COS_MAX_TURN;
+			sin = -SIN_MAX_TURN;
+		} else if(turnDelta == 0) {
+			cos = 1;
+			sin = 0;
+		} else {
+			cos = Math.cos(turnDelta);
+			sin = Math.sin(turnDelta);
+		}
 		
+		double hx = inputState.headingX(), hy = inputState.headingY();
+		outputState.setHeading(inRange(inputState.angle + turnDelta), hx*cos - hy*sin, hx*sin + hy*cos);
+	}
+	
+	/**
+	 * Acceleration and movement, along the facing vector that has already been set in the output state.
+	 * @param inputState
+	 * @param outputState
+	 * @param thrust
+	 */
+	private static void accelerate(PodInfo inputState, PodInfo outputState, int thrust) {
 		// 2. Acceleration
-		Vec dir = Vec.UNIT.rotate(angle);
-		outputState.vel = inputState.vel.plus(dir.times(play.getThrust()));
+		outputState.vel = inputState.vel.plus(new Vec(thrust * outputState.headX, thrust * outputState.headY));
 		
 		// 3. Movement
 		outputState.pos = inputState.pos.plus(outputState.vel);
 		
+		outputState.nextCheck = inputState.nextCheck;
+		outputState.laps = inputState.laps;
+	}
+	
+	/**
+	 * Second part of {@link #update(PodInfo, PodInfo, PlayOutput)}, once the collisions have been resolved:
+	 * friction, and checkpoints.
+	 * @param outputState
+	 */
+	private void endTurn(PodInfo outputState) {
 		// 4. Friction
 		outputState.vel = outputState.vel.times(FRICTION);
 		
 		// Update next check
-		outputState.nextCheck = inputState.nextCheck;
-		outputState.laps = inputState.laps;
-		Vec nextCheck = checkpoints.get(inputState.nextCheck);
+		double dx = geometry.checkX(outputState.nextCheck) - outputState.pos.x;
+		double dy = geometry.checkY(outputState.nextCheck) - outputState.pos.y;
 		
-		if(nextCheck.minus(outputState.pos).norm2() < CHECK_RADIUS*CHECK_RADIUS) {
-			if(++outputState.nextCheck >= checkpoints.size()) {
+		if(dx*dx + dy*dy < CHECK_RADIUS*CHECK_RADIUS) {
+			if(++outputState.nextCheck >= geometry.numChecks()) {
 				outputState.nextCheck = 0;
 				outputState.laps++;
 			}
@@ -187,6 +560,13 @@ The provided angle is absolute. 0
 		return checkpoints;
 	}
 	
+	/**
+	 * Get the precomputed geometry of the track (legs, distances, turn angles).
+	 */
+	public TrackGeometry getGeometry() {
+		return geometry;
+	}
+	
 	public List<PodInfo> getPods() {
 		return pods;
 	}
@@ -195,11 +575,96 @@ The provided angle is absolute. 0
 	 * Set all pods back to their initial positions.
 	 */
 	public void reset() {
-		pods = new ArrayList<PodInfo>();
-		for(int i=0; i<players.size(); i++) {
-			PodInfo p = new PodInfo();
-			p.pos = checkpoints.get(checkpoints.size()-1);
-			pods.add(p);
+		Vec home = checkpoints.get(checkpoints.size()-1);
+		for(PodInfo p : pods) {
+			p.pos = home;
+			p.vel = Vec.ORIGIN;
+			p.setHeading(0, 1, 0);
+			p.nextCheck = 0;
+			p.laps = 0;
+		}
+	}
+	
+	/**
+	 * Save the state of all the pods.
+	 * @return A new Snapshot that can be given to {@link #restore(Snapshot)}
+	 */
+	public Snapshot snapshot() {
+		return snapshot(new Snapshot());
+	}
+	
+	/**
+	 * Save the state of all the pods into the given Snapshot, overwriting whatever it held before. Once the
+	 * Snapshot is big enough, this doesn't allocate anything.
+	 * @param snap
+	 * @return snap
+	 */
+	public Snapshot snapshot(Snapshot snap) {
+		snap.setSize(pods.size());
+		for(int i=0; i<pods.size(); i++) {
+			PodInfo p = pods.get(i);
+			snap.pos[i] = p.pos;
+			snap.vel[i] = p.vel;
+			snap.angle[i] = p.angle;
+			snap.headX[i] = p.headX;
+			snap.headY[i] = p.headY;
+			snap.headingAngle[i] = p.headingAngle;
+			snap.nextCheck[i] = p.nextCheck;
+			snap.laps[i] = p.laps;
+		}
+		return snap;
+	}
+	
+	/**
+	 * Put all the pods back in the state saved in the given Snapshot. The PodInfo objects are kept, so
+	 * references to them (e.g. from {@link #getPod(Controller)}) remain valid.
+	 * @param snap A Snapshot of this world (or at least, of a world with the same number of pods)
+	 */
+	public void restore(Snapshot snap) {
+		if(snap.size != pods.size())
+			throw new IllegalArgumentException("The snapshot has " + snap.size + " pods, but this world has " + pods.size());
+		for(int i=0; i<pods.size(); i++) {
+			PodInfo p = pods.get(i);
+			p.pos = snap.pos[i];
+			p.vel = snap.vel[i];
+			p.angle = snap.angle[i];
+			p.headX = snap.headX[i];
+			p.headY = snap.headY[i];
+			p.headingAngle = snap.headingAngle[i];
+			p.nextCheck = snap.nextCheck[i];
+			p.laps = snap.laps[i];
+		}
+	}
+	
+	/**
+	 * The saved state of the pods of a world. Since Vecs are immutable, positions and velocities are simply
+	 * shared with the pods.
+	 */
+	public static class Snapshot {
+		private int size = 0;
+		private Vec[] pos = new Vec[0], vel = new Vec[0];
+		private double[] angle = new double[0], headX = new double[0], headY = new double[0], headingAngle = new double[0];
+		private int[] nextCheck = new int[0], laps = new int[0];
+		
+		private void setSize(int n) {
+			size = n;
+			if(pos.length >= n)
+				return;
+			pos = new Vec[n];
+			vel = new Vec[n];
+			angle = new double[n];
+			headX = new double[n];
+			headY = new double[n];
+			headingAngle = new double[n];
+			nextCheck = new int[n];
+			laps = new int[n];
+		}
+		
+		/**
+		 * Number of pods saved in this Snapshot.
+		 */
+		public int size() {
+			return size;
 		}
 	}
 
@@ -212,6 +677,15 @@ The provided angle is absolute. 0
 		int index = players.indexOf(player);
 		return pods.get(index);
 	}
+	
+	/**
+	 * Check whether the given Controller has been added as a player.
+	 * @param player
+	 * @return
+	 */
+	public boolean isPlaying(Controller player) {
+		return players.contains(player);
+	}
 
 	@Override
 	public int hashCode() {
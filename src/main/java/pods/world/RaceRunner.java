@@ -0,0 +1,320 @@
+package pods.world;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import pods.controller.Controller;
+import pods.controller.ControllerFactory;
+import pods.controller.TimedController;
+import util.LatencyHistogram;
+import util.RandomSource;
+import util.Vec;
+
+/**
+ * Headless benchmark: runs full races (until a number of laps is completed, or a turn cap is reached) for
+ * several controllers over a corpus of tracks, in parallel on a fork-join pool.
+ * <br>Every controller races alone on every track, so the results don't depend on the other controllers.
+ * Each race gets its own random generator, split in a fixed order from the caller's, so a run can be
+ * reproduced whatever the number of threads.
+ * <br>With {@link #setTurnBudget(long)}, every controller is wrapped in a {@link TimedController}, and the stats
+ * include the distribution of the time taken per turn. The races run in parallel, so this is only a rough
+ * measure of what the controller would get alone on a machine.
+ */
+public class RaceRunner {
+	public static final int DEFAULT_LAPS = 3, DEFAULT_MAX_TURNS = 1000;
+	/**
+	 * Maximum number of races handled by one fork-join task without splitting
+	 */
+	private static final int RACES_PER_TASK = 4;
+
+	private final List<List<Vec>> tracks;
+	private final int laps, maxTurns;
+	private final ForkJoinPool pool;
+	/**
+	 * Time limit of a turn, or 0 if the controllers are not timed
+	 */
+	private long turnBudget = 0;
+
+	public RaceRunner(List<List<Vec>> tracks) {
+		this(tracks, DEFAULT_LAPS, DEFAULT_MAX_TURNS, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * @param tracks The checkpoints of each track
+	 * @param laps Number of laps needed to finish a race
+	 * @param maxTurns Races that are not finished after this number of turns are abandoned
+	 * @param pool The pool on which to run the races
+	 */
+	public RaceRunner(List<List<Vec>> tracks, int laps, int maxTurns, ForkJoinPool pool) {
+		if(tracks.isEmpty())
+			throw new IllegalArgumentException("No tracks to race on");
+		this.tracks = tracks;
+		this.laps = laps;
+		this.maxTurns = maxTurns;
+		this.pool = pool;
+	}
+
+	/**
+	 * Time every turn of every controller, and count the ones that take longer than the given budget.
+	 * Controllers that add themselves to the world cannot be timed.
+	 * @param budgetNanos The time limit of a turn, or 0 not to time the controllers
+	 */
+	public void setTurnBudget(long budgetNanos) {
+		turnBudget = budgetNanos;
+	}
+
+	/**
+	 * Race every controller on every track.
+	 * @param factories The controllers to test, by name
+	 * @return
+	 */
+	public Report run(Map<String, ControllerFactory> factories) {
+		List<ControllerFactory> factoryList = new ArrayList<ControllerFactory>(factories.values());
+		int numRaces = factoryList.size() * tracks.size();
+		RandomSource random = RandomSource.current();
+		RandomSource[] randoms = new RandomSource[numRaces];
+		for(int i=0; i<numRaces; i++)
+			randoms[i] = random.split();
+
+		int[] turns = new int[numRaces];
+		boolean[] finished = new boolean[numRaces];
+		TimedController[] timers = new TimedController[numRaces];
+		long start = System.nanoTime();
+		pool.invoke(new RaceTask(factoryList, randoms, turns, finished, timers, 0, numRaces));
+		long nanos = System.nanoTime() - start;
+
+		Map<String, RaceStats> stats = new LinkedHashMap<String, RaceStats>();
+		long totalTurns = 0;
+		int f = 0;
+		for(String name : factories.keySet()) {
+			int[] factoryTurns = Arrays.copyOfRange(turns, f*tracks.size(), (f+1)*tracks.size());
+			boolean[] factoryFinished = Arrays.copyOfRange(finished, f*tracks.size(), (f+1)*tracks.size());
+			RaceStats raceStats = new RaceStats(factoryTurns, factoryFinished);
+			if(turnBudget > 0) {
+				raceStats.latency = new LatencyHistogram();
+				for(int i=f*tracks.size(); i<(f+1)*tracks.size(); i++) {
+					raceStats.latency.add(timers[i].getHistogram());
+					raceStats.overBudget += timers[i].overBudget();
+				}
+			}
+			stats.put(name, raceStats);
+			for(int t : factoryTurns)
+				totalTurns += t;
+			f++;
+		}
+
+		return new Report(stats, totalTurns, nanos);
+	}
+
+	/**
+	 * Run one race.
+	 * @param turns Gets the number of turns that were played at index i (maxTurns if the race was not finished)
+	 * @param finished Gets whether the race was finished at index i (which can be on the last turn allowed)
+	 * @param timers If the controllers are timed, gets the timer of this race at index i
+	 */
+	private void race(ControllerFactory factory, List<Vec> track, int[] turns, boolean[] finished,
+			TimedController[] timers, int i) {
+		PodWorld world = new PodWorld(track);
+		Controller controller = factory.build(world);
+		if(turnBudget > 0) {
+			if(world.isPlaying(controller))
+				throw new IllegalStateException("Cannot time a controller that adds itself to the world");
+			controller = timers[i] = new TimedController(controller, turnBudget);
+		}
+		if(!world.isPlaying(controller))
+			world.addPlayer(controller);
+		PodInfo pod = world.getPod(controller);
+
+		int turn = 0;
+		while(pod.laps < laps && turn < maxTurns) {
+			world.step();
+			turn++;
+		}
+		turns[i] = turn;
+		finished[i] = pod.laps >= laps;
+	}
+
+	/**
+	 * Runs the races in [from, to), splitting the range in half until it is small enough.
+	 * Race i is for factory (i / tracks.size()), on track (i % tracks.size()).
+	 */
+	private class RaceTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final List<ControllerFactory> factories;
+		private final RandomSource[] randoms;
+		private final int[] turns;
+		private final boolean[] finished;
+		private final TimedController[] timers;
+		private final int from, to;
+
+		RaceTask(List<ControllerFactory> factories, RandomSource[] randoms, int[] turns, boolean[] finished,
+				TimedController[] timers, int from, int to) {
+			this.factories = factories;
+			this.randoms = randoms;
+			this.turns = turns;
+			this.finished = finished;
+			this.timers = timers;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if(to - from > RACES_PER_TASK) {
+				int mid = (from + to) >>> 1;
+				invokeAll(new RaceTask(factories, randoms, turns, finished, timers, from, mid),
+						new RaceTask(factories, randoms, turns, finished, timers, mid, to));
+				return;
+			}
+
+			RandomSource previous = RandomSource.current();
+			try {
+				for(int i=from; i<to; i++) {
+					RandomSource.setCurrent(randoms[i]);
+					race(factories.get(i / tracks.size()), tracks.get(i % tracks.size()), turns, finished, timers, i);
+				}
+			} finally {
+				RandomSource.setCurrent(previous);
+			}
+		}
+	}
+
+	/**
+	 * Distribution of the number of turns needed to finish a race, for one controller.
+	 */
+	public static class RaceStats {
+		/**
+		 * Turns needed for each finished race, in increasing order
+		 */
+		private final int[] finished;
+		private final int races;
+		/**
+		 * Time taken per turn, over all races (null if the controllers were not timed)
+		 */
+		private LatencyHistogram latency;
+		private long overBudget;
+
+		/**
+		 * @param turns The number of turns played in each race
+		 * @param completed Whether each race was finished
+		 */
+		RaceStats(int[] turns, boolean[] completed) {
+			races = turns.length;
+			List<Integer> done = new ArrayList<Integer>();
+			for(int i=0; i<turns.length; i++) {
+				if(completed[i])
+					done.add(turns[i]);
+			}
+			Collections.sort(done);
+			finished = new int[done.size()];
+			for(int i=0; i<finished.length; i++)
+				finished[i] = done.get(i);
+		}
+
+		/**
+		 * Total number of races run
+		 */
+		public int races() {
+			return races;
+		}
+
+		/**
+		 * Number of races that were finished within the turn cap
+		 */
+		public int finished() {
+			return finished.length;
+		}
+
+		/**
+		 * Get the given percentile of the number of turns to finish, among the finished races.
+		 * @param p Between 0 and 100
+		 * @return The number of turns, or -1 if no race was finished
+		 */
+		public int percentile(double p) {
+			if(finished.length == 0)
+				return -1;
+			int idx = (int) Math.ceil(p / 100. * finished.length) - 1;
+			return finished[Math.max(0, Math.min(finished.length - 1, idx))];
+		}
+
+		/**
+		 * Average number of turns to finish, among the finished races
+		 */
+		public double mean() {
+			if(finished.length == 0)
+				return Double.NaN;
+			long sum = 0;
+			for(int t : finished)
+				sum += t;
+			return (double) sum / finished.length;
+		}
+
+		/**
+		 * Time taken per turn, in nanoseconds, over all races
+		 * @return The histogram, or null if the controllers were not timed
+		 */
+		public LatencyHistogram latency() {
+			return latency;
+		}
+
+		/**
+		 * Number of turns that took longer than the budget, over all races
+		 */
+		public long overBudget() {
+			return overBudget;
+		}
+
+		@Override
+		public String toString() {
+			String s = String.format("finished %d/%d  mean %.1f  min %d  p50 %d  p90 %d  p99 %d  max %d",
+					finished(), races, mean(), percentile(0), percentile(50), percentile(90), percentile(99), percentile(100));
+			if(latency != null)
+				s += String.format("\n  turn time: %s  over budget %d", latency, overBudget);
+			return s;
+		}
+	}
+
+	/**
+	 * Results of a run: stats for each controller, plus the simulation throughput.
+	 */
+	public static class Report {
+		public final Map<String, RaceStats> stats;
+		/**
+		 * Total number of turns simulated, over all races
+		 */
+		public final long totalTurns;
+		/**
+		 * Wall-clock time of the whole run
+		 */
+		public final long nanos;
+
+		Report(Map<String, RaceStats> stats, long totalTurns, long nanos) {
+			this.stats = Collections.unmodifiableMap(stats);
+			this.totalTurns = totalTurns;
+			this.nanos = nanos;
+		}
+
+		public double turnsPerSecond() {
+			return totalTurns * 1e9 / nanos;
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder sb = new StringBuilder();
+			for(Map.Entry<String, RaceStats> e : stats.entrySet()) {
+				sb.append(e.getKey());
+				sb.append(": ");
+				sb.append(e.getValue());
+				sb.append("\n");
+			}
+			sb.append(String.format("%d turns in %.3f s (%.0f turns/s)", totalTurns, nanos / 1e9, turnsPerSecond()));
+			return sb.toString();
+		}
+	}
+}
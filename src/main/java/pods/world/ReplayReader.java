@@ -0,0 +1,134 @@
+package pods.world;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import pods.controller.PlayOutput;
+import util.Vec;
+
+/**
+ * Reads a replay written by a {@link ReplayRecorder}. Since all records have the same size, any turn can be
+ * read directly, without going through the ones before it.
+ */
+public class ReplayReader implements Closeable {
+	private final FileChannel channel;
+	private final int numPods, headerSize, turnsPerChunk;
+	private final long turns;
+	private final List<Vec> checkpoints;
+	/**
+	 * The chunks of the file, mapped as they are needed
+	 */
+	private final MappedByteBuffer[] chunks;
+
+	public ReplayReader(Path file) throws IOException {
+		channel = FileChannel.open(file, StandardOpenOption.READ);
+		ByteBuffer fixed = channel.map(MapMode.READ_ONLY, 0, ReplayRecorder.headerSize(0));
+		if(fixed.getInt() != ReplayRecorder.MAGIC)
+			throw new IOException(file + " is not a replay file");
+		int version = fixed.getInt();
+		if(version != ReplayRecorder.VERSION)
+			throw new IOException("Unknown replay version " + version);
+		numPods = fixed.getInt();
+		int numChecks = fixed.getInt();
+		turnsPerChunk = fixed.getInt();
+		turns = fixed.getLong(ReplayRecorder.TURNS_OFFSET);
+
+		headerSize = ReplayRecorder.headerSize(numChecks);
+		ByteBuffer header = channel.map(MapMode.READ_ONLY, 0, headerSize);
+		header.position(ReplayRecorder.headerSize(0));
+		List<Vec> checks = new ArrayList<Vec>(numChecks);
+		for(int i=0; i<numChecks; i++)
+			checks.add(new Vec(header.getDouble(), header.getDouble()));
+		checkpoints = Collections.unmodifiableList(checks);
+
+		chunks = new MappedByteBuffer[(int) ((turns + turnsPerChunk - 1) / turnsPerChunk)];
+	}
+
+	public int numPods() {
+		return numPods;
+	}
+
+	/**
+	 * Number of turns in the replay
+	 */
+	public long turns() {
+		return turns;
+	}
+
+	public List<Vec> getCheckpoints() {
+		return checkpoints;
+	}
+
+	/**
+	 * Get the state of a pod at the end of the given turn.
+	 * @param turn Between 0 and turns()-1
+	 * @param pod Index of the pod
+	 * @return
+	 */
+	public PodInfo getPod(long turn, int pod) {
+		ByteBuffer buf = chunkFor(turn);
+		int offset = offset(turn, pod);
+		PodInfo info = new PodInfo();
+		info.pos = new Vec(buf.getDouble(offset), buf.getDouble(offset + 8));
+		info.vel = new Vec(buf.getDouble(offset + 16), buf.getDouble(offset + 24));
+		info.angle = buf.getDouble(offset + 32);
+		info.nextCheck = buf.getInt(offset + 40);
+		info.laps = buf.getInt(offset + 44);
+		return info;
+	}
+
+	/**
+	 * Get the play that a pod made on the given turn.
+	 * @param turn Between 0 and turns()-1
+	 * @param pod Index of the pod
+	 * @return
+	 */
+	public PlayOutput getPlay(long turn, int pod) {
+		ByteBuffer buf = chunkFor(turn);
+		int offset = offset(turn, pod);
+		PlayOutput play = new PlayOutput();
+		play.setDir(new Vec(buf.getInt(offset + 48), buf.getInt(offset + 52)));
+		play.setThrust(buf.getInt(offset + 56));
+		return play;
+	}
+
+	/**
+	 * Offset of the record of the given pod in the chunk holding the given turn
+	 */
+	private int offset(long turn, int pod) {
+		if(pod < 0 || pod >= numPods)
+			throw new IndexOutOfBoundsException("Pod " + pod + " of " + numPods);
+		return (int) ((turn % turnsPerChunk) * numPods + pod) * ReplayRecorder.POD_RECORD_SIZE;
+	}
+
+	private ByteBuffer chunkFor(long turn) {
+		if(turn < 0 || turn >= turns)
+			throw new IndexOutOfBoundsException("Turn " + turn + " of " + turns);
+		int idx = (int) (turn / turnsPerChunk);
+		if(chunks[idx] == null) {
+			long recordSize = (long) numPods * ReplayRecorder.POD_RECORD_SIZE;
+			long start = headerSize + (long) idx * turnsPerChunk * recordSize;
+			long length = Math.min(turnsPerChunk, turns - idx * (long) turnsPerChunk) * recordSize;
+			try {
+				chunks[idx] = channel.map(MapMode.READ_ONLY, start, length);
+			} catch(IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+		return chunks[idx];
+	}
+
+	public void close() throws IOException {
+		channel.close();
+	}
+}
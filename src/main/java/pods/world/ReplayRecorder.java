@@ -0,0 +1,161 @@
+package pods.world;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import pods.controller.PlayOutput;
+import util.Vec;
+
+/**
+ * Records every step of a PodWorld into a memory-mapped file, to be read back with a {@link ReplayReader}.
+ * <br>The file starts with a header (see {@link #headerSize(int)}) holding the number of pods, the checkpoints, the
+ * number of turns per mapped chunk and the number of turns recorded so far. Then comes one fixed-width record per turn, holding for each pod its state
+ * after the turn and the play it made (see {@link #POD_RECORD_SIZE}).
+ * <br>The file is mapped and grown in chunks of whole turns, so that recording a turn is just a few puts in a
+ * buffer, without allocating anything. Since the file grows by whole chunks, its size is usually larger than
+ * what has been recorded until the recorder is closed: the header holds the real number of turns.
+ */
+public class ReplayRecorder implements Closeable {
+	/** "PODR" */
+	static final int MAGIC = 0x504f4452;
+	static final int VERSION = 1;
+	/**
+	 * Offset of the number of turns in the header
+	 */
+	static final int TURNS_OFFSET = 24;
+	/**
+	 * Size of the record for one pod, in bytes:
+	 * pos, vel (4 doubles), angle (double), nextCheck, laps (2 ints), play dir (2 ints), thrust (int)
+	 */
+	static final int POD_RECORD_SIZE = 5*8 + 5*4;
+	/**
+	 * Approximate size of the chunks by which the file is mapped
+	 */
+	public static final int CHUNK_SIZE = 1 << 24;
+
+	private final FileChannel channel;
+	private final MappedByteBuffer header;
+	private final int numPods, headerSize, turnsPerChunk;
+	private MappedByteBuffer chunk;
+	private long turns = 0;
+
+	/**
+	 * Create (or overwrite) a replay file for the given world. The number of pods in the world must not
+	 * change while it is being recorded.
+	 * @param file
+	 * @param world
+	 * @throws IOException
+	 */
+	public ReplayRecorder(Path file, PodWorld world) throws IOException {
+		this(file, world, CHUNK_SIZE);
+	}
+	
+	/**
+	 * @param file
+	 * @param world
+	 * @param chunkSize Approximate size of the chunks by which the file is mapped
+	 * @throws IOException
+	 */
+	public ReplayRecorder(Path file, PodWorld world, int chunkSize) throws IOException {
+		numPods = world.getPods().size();
+		if(numPods == 0)
+			throw new IllegalArgumentException("Cannot record a world without pods");
+		List<Vec> checks = world.getCheckpoints();
+		headerSize = headerSize(checks.size());
+		turnsPerChunk = Math.max(1, chunkSize / (numPods * POD_RECORD_SIZE));
+		channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+				StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+		header = channel.map(MapMode.READ_WRITE, 0, headerSize);
+		header.putInt(MAGIC);
+		header.putInt(VERSION);
+		header.putInt(numPods);
+		header.putInt(checks.size());
+		header.putInt(turnsPerChunk);
+		header.putInt(0);
+		header.putLong(0);
+		for(Vec check : checks) {
+			header.putDouble(check.x);
+			header.putDouble(check.y);
+		}
+	}
+
+	static int headerSize(int numChecks) {
+		return TURNS_OFFSET + 8 + numChecks * 16;
+	}
+
+	/**
+	 * Append the current state of the world, and the plays that led to it, as the next turn.
+	 * @param world
+	 */
+	public void record(PodWorld world) {
+		List<PodInfo> pods = world.getPods();
+		if(pods.size() != numPods)
+			throw new IllegalStateException("Recording " + numPods + " pods, but the world has " + pods.size());
+
+		if(turns % turnsPerChunk == 0)
+			mapNextChunk();
+
+		for(int i=0; i<numPods; i++) {
+			PodInfo pod = pods.get(i);
+			chunk.putDouble(pod.pos.x);
+			chunk.putDouble(pod.pos.y);
+			chunk.putDouble(pod.vel.x);
+			chunk.putDouble(pod.vel.y);
+			chunk.putDouble(pod.angle);
+			chunk.putInt(pod.nextCheck);
+			chunk.putInt(pod.laps);
+
+			PlayOutput play = world.getLastPlay(i);
+			if(play == null) {
+				chunk.putInt(0);
+				chunk.putInt(0);
+				chunk.putInt(0);
+			} else {
+				chunk.putInt(play.getDirX());
+				chunk.putInt(play.getDirY());
+				chunk.putInt(play.getThrust());
+			}
+		}
+
+		header.putLong(TURNS_OFFSET, ++turns);
+	}
+
+	private void mapNextChunk() {
+		long chunkSize = (long) turnsPerChunk * numPods * POD_RECORD_SIZE;
+		try {
+			chunk = channel.map(MapMode.READ_WRITE, headerSize + turns * numPods * POD_RECORD_SIZE, chunkSize);
+		} catch(IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Number of turns recorded so far
+	 */
+	public long turns() {
+		return turns;
+	}
+
+	/**
+	 * Flush the recorded turns, and cut the file after the last one.
+	 */
+	public void close() throws IOException {
+		header.force();
+		if(chunk != null)
+			chunk.force();
+		chunk = null;
+		try {
+			channel.truncate(headerSize + turns * numPods * POD_RECORD_SIZE);
+		} finally {
+			channel.close();
+		}
+	}
+}
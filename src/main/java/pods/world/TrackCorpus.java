@@ -0,0 +1,276 @@
+package pods.world;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import util.Vec;
+
+/**
+ * A list of tracks, stored compactly.
+ * <br>Checkpoints are stored as integer coordinates (like in the game), all in one flat array. {@link #add(List)}
+ * appends like any List, and {@link #addIfAbsent(List)} skips the tracks already in the corpus. Duplicates are
+ * found with a hash of the coordinates, checked against the stored content, so they never depend on
+ * {@link Vec#hashCode()}.
+ * <br>On disk, a corpus is: a header (magic, version, number of tracks, total number of checkpoints), then one byte
+ * per track for its number of checkpoints, then the coordinates of all checkpoints as shorts (x, y). That is about
+ * 20 bytes per track, and loading it is just a few bulk reads.
+ * <br>Being a List, a corpus can be given directly to a {@link RaceRunner}.
+ */
+public class TrackCorpus extends AbstractList<List<Vec>> {
+	/** "PODT" */
+	static final int MAGIC = 0x504f4454;
+	static final int VERSION = 1;
+	private static final int HEADER_SIZE = 16;
+
+	/**
+	 * Index of the first checkpoint of each track in coords (in checkpoints, not shorts); offsets[size] is the end
+	 */
+	private int[] offsets = new int[16];
+	/**
+	 * x, y of every checkpoint
+	 */
+	private short[] coords = new short[128];
+	private int size = 0;
+	/**
+	 * Open addressing hash table: 1 + index of a track, or 0 if the slot is empty
+	 */
+	private int[] table = new int[32];
+
+	public TrackCorpus() {
+	}
+
+	/**
+	 * A corpus of the given tracks, without their duplicates
+	 * @param tracks
+	 */
+	public TrackCorpus(List<List<Vec>> tracks) {
+		for(List<Vec> track : tracks)
+			addIfAbsent(track);
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Number of checkpoints of the given track
+	 * @param i
+	 * @return
+	 */
+	public int numChecks(int i) {
+		checkIndex(i);
+		return offsets[i+1] - offsets[i];
+	}
+
+	@Override
+	public List<Vec> get(int i) {
+		checkIndex(i);
+		List<Vec> checks = new ArrayList<Vec>(numChecks(i));
+		for(int c = offsets[i]; c < offsets[i+1]; c++)
+			checks.add(new Vec(coords[2*c], coords[2*c+1]));
+		return checks;
+	}
+
+	/**
+	 * Build a world on the given track
+	 * @param i
+	 * @return
+	 */
+	public PodWorld toWorld(int i) {
+		return new PodWorld(get(i));
+	}
+
+	/**
+	 * Append a track, even if it is already in the corpus. Coordinates are truncated to integers.
+	 * @param track
+	 * @return Always true
+	 */
+	@Override
+	public boolean add(List<Vec> track) {
+		int slot = store(track);
+		if(table[slot] == 0)
+			table[slot] = size + 1;
+		append();
+		return true;
+	}
+
+	/**
+	 * Append a track, unless it is already in the corpus. Coordinates are truncated to integers.
+	 * @param track
+	 * @return True if the track was added, false if it was a duplicate
+	 */
+	public boolean addIfAbsent(List<Vec> track) {
+		int slot = store(track);
+		if(table[slot] != 0)
+			return false;
+		table[slot] = size + 1;
+		append();
+		return true;
+	}
+
+	/**
+	 * Write the checkpoints of a track after the last one, without adding it yet.
+	 * @return The slot of the first track equal to it, or the empty slot where it should go
+	 */
+	private int store(List<Vec> track) {
+		if(track.isEmpty() || track.size() > 255)
+			throw new IllegalArgumentException("Cannot store a track with " + track.size() + " checkpoints");
+		int start = offsets[size];
+		ensureCapacity(size + 1, start + track.size());
+		for(int i=0; i<track.size(); i++) {
+			Vec check = track.get(i);
+			coords[2*(start+i)] = toShort(check.x);
+			coords[2*(start+i)+1] = toShort(check.y);
+		}
+		offsets[size+1] = start + track.size();
+		return findSlot(size);
+	}
+
+	private void append() {
+		size++;
+		modCount++;
+		if(size * 2 > table.length)
+			rehash(table.length * 2);
+	}
+
+	private static short toShort(double coord) {
+		int c = (int) coord;
+		if(c < 0 || c > Short.MAX_VALUE)
+			throw new IllegalArgumentException("Coordinate out of range: " + coord);
+		return (short) c;
+	}
+
+	private void ensureCapacity(int tracks, int checks) {
+		if(tracks + 1 > offsets.length)
+			offsets = Arrays.copyOf(offsets, Math.max(tracks + 1, offsets.length * 2));
+		if(2 * checks > coords.length)
+			coords = Arrays.copyOf(coords, Math.max(2 * checks, coords.length * 2));
+	}
+
+	/**
+	 * Find the slot holding the first track equal to the given one, or the empty slot where it should go.
+	 */
+	private int findSlot(int track) {
+		int mask = table.length - 1;
+		int slot = (int) hash(track) & mask;
+		while(table[slot] != 0 && !sameTrack(table[slot] - 1, track))
+			slot = (slot + 1) & mask;
+		return slot;
+	}
+
+	private long hash(int track) {
+		long h = 0x9e3779b97f4a7c15L;
+		for(int i = 2*offsets[track]; i < 2*offsets[track+1]; i++) {
+			h = (h ^ coords[i]) * 0xbf58476d1ce4e5b9L;
+			h ^= h >>> 31;
+		}
+		return h ^ (h >>> 32);
+	}
+
+	private boolean sameTrack(int a, int b) {
+		int n = offsets[a+1] - offsets[a];
+		if(offsets[b+1] - offsets[b] != n)
+			return false;
+		for(int i=0; i<2*n; i++) {
+			if(coords[2*offsets[a] + i] != coords[2*offsets[b] + i])
+				return false;
+		}
+		return true;
+	}
+
+	private void rehash(int capacity) {
+		table = new int[capacity];
+		for(int i=0; i<size; i++) {
+			int slot = findSlot(i);
+			if(table[slot] == 0)
+				table[slot] = i + 1;
+		}
+	}
+
+	private void checkIndex(int i) {
+		if(i < 0 || i >= size)
+			throw new IndexOutOfBoundsException("Track " + i + " of " + size);
+	}
+
+	/**
+	 * Write the corpus to a file, overwriting it if it exists.
+	 * @param file
+	 * @throws IOException
+	 */
+	public void save(Path file) throws IOException {
+		int numChecks = offsets[size];
+		ByteBuffer buf = ByteBuffer.allocate(HEADER_SIZE + size + 4*numChecks).order(ByteOrder.LITTLE_ENDIAN);
+		buf.putInt(MAGIC);
+		buf.putInt(VERSION);
+		buf.putInt(size);
+		buf.putInt(numChecks);
+		for(int i=0; i<size; i++)
+			buf.put((byte) (offsets[i+1] - offsets[i]));
+		buf.asShortBuffer().put(coords, 0, 2*numChecks);
+		buf.rewind();
+
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+				StandardOpenOption.WRITE);
+		try {
+			while(buf.hasRemaining())
+				channel.write(buf);
+		} finally {
+			channel.close();
+		}
+	}
+
+	/**
+	 * Read a corpus written by {@link #save(Path)}.
+	 * @param file
+	 * @return
+	 * @throws IOException
+	 */
+	public static TrackCorpus load(Path file) throws IOException {
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+		ByteBuffer buf;
+		try {
+			long length = channel.size();
+			if(length < HEADER_SIZE || length > Integer.MAX_VALUE)
+				throw new IOException(file + " is not a track corpus");
+			buf = ByteBuffer.allocate((int) length).order(ByteOrder.LITTLE_ENDIAN);
+			while(buf.hasRemaining() && channel.read(buf) >= 0);
+			buf.flip();
+		} finally {
+			channel.close();
+		}
+
+		if(buf.getInt() != MAGIC)
+			throw new IOException(file + " is not a track corpus");
+		int version = buf.getInt();
+		if(version != VERSION)
+			throw new IOException("Unknown corpus version " + version);
+		int size = buf.getInt();
+		int numChecks = buf.getInt();
+		if(size < 0 || numChecks < 0 || buf.remaining() != size + 4L*numChecks)
+			throw new IOException(file + " is truncated or corrupted");
+
+		TrackCorpus corpus = new TrackCorpus();
+		corpus.offsets = new int[size + 1];
+		for(int i=0; i<size; i++)
+			corpus.offsets[i+1] = corpus.offsets[i] + (buf.get() & 0xff);
+		if(corpus.offsets[size] != numChecks)
+			throw new IOException(file + " is truncated or corrupted");
+		corpus.coords = new short[2*numChecks];
+		buf.asShortBuffer().get(corpus.coords);
+		corpus.size = size;
+		int capacity = 32;
+		while(capacity < 2*size)
+			capacity *= 2;
+		corpus.rehash(capacity);
+		return corpus;
+	}
+}
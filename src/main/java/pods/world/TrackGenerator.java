@@ -0,0 +1,162 @@
+package pods.world;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import util.RandomSource;
+import util.Vec;
+
+/**
+ * Generates tracks with the same rules as {@link PodWorld#generateCheckpoint(List, RandomSource)}: checkpoints
+ * away from the border, and at least {@link PodWorld#CHECK_SPACING} away from each other.
+ * <br>This is Poisson-disk sampling (dart throwing) over a background grid: the cells are small enough to hold at
+ * most one checkpoint, so a candidate is only checked against the few cells around it, and candidates that fall
+ * in an occupied cell are rejected right away. Candidates are only drawn inside the padded area, so nothing is
+ * wasted on the border either.
+ * <br>A TrackGenerator reuses its grid from one track to the next, so it must not be shared between threads.
+ */
+public class TrackGenerator {
+	/**
+	 * Side of a grid cell. Two points in the same cell are less than CHECK_SPACING apart.
+	 */
+	private static final double CELL = PodWorld.CHECK_SPACING / Math.sqrt(2);
+	/**
+	 * A checkpoint can be too close to the ones up to this number of cells away
+	 */
+	private static final int REACH = (int) Math.ceil(PodWorld.CHECK_SPACING / CELL);
+	private static final double MIN_X = PodWorld.BORDER_PADDING, MIN_Y = PodWorld.BORDER_PADDING;
+	private static final double RANGE_X = PodWorld.WORLD_X - 2*PodWorld.BORDER_PADDING;
+	private static final double RANGE_Y = PodWorld.WORLD_Y - 2*PodWorld.BORDER_PADDING;
+	private static final int COLS = (int) (RANGE_X / CELL) + 1, ROWS = (int) (RANGE_Y / CELL) + 1;
+	/**
+	 * Number of candidates to try for one checkpoint before giving up
+	 */
+	private static final int MAX_TRIES = 10000;
+	/**
+	 * Number of tracks generated by one task of {@link #generate(int, RandomSource, ForkJoinPool)}
+	 */
+	private static final int TRACKS_PER_TASK = 1024;
+
+	/**
+	 * For each cell: 1 + the index of the checkpoint in it, or 0 if it is empty
+	 */
+	private final int[] grid = new int[COLS * ROWS];
+	private final int[] usedCells = new int[grid.length];
+	private final double[] xs = new double[grid.length], ys = new double[grid.length];
+
+	/**
+	 * Generate a track with a random number of checkpoints between MIN_CHECKS and MAX_CHECKS.
+	 * @param random
+	 * @return
+	 */
+	public List<Vec> generate(RandomSource random) {
+		return generate(random.nextInt(PodWorld.MAX_CHECKS - PodWorld.MIN_CHECKS) + PodWorld.MIN_CHECKS, random);
+	}
+
+	/**
+	 * Generate a track with the given number of checkpoints.
+	 * @param numChecks
+	 * @param random
+	 * @return
+	 */
+	public List<Vec> generate(int numChecks, RandomSource random) {
+		List<Vec> checks = new ArrayList<Vec>(numChecks);
+		for(int i=0; i<numChecks; i++) {
+			int tries = 0;
+			while(!tryPlace(i, random)) {
+				if(++tries >= MAX_TRIES) {
+					clear(i);
+					throw new IllegalArgumentException("Cannot fit " + numChecks + " checkpoints in the world");
+				}
+			}
+			checks.add(new Vec(xs[i], ys[i]));
+		}
+		clear(numChecks);
+		return checks;
+	}
+
+	/**
+	 * Draw one candidate for the given checkpoint, and place it if it is far enough from the others.
+	 */
+	private boolean tryPlace(int idx, RandomSource random) {
+		double x = (int) (MIN_X + random.nextDouble() * RANGE_X);
+		double y = (int) (MIN_Y + random.nextDouble() * RANGE_Y);
+		int col = (int) ((x - MIN_X) / CELL), row = (int) ((y - MIN_Y) / CELL);
+		if(grid[row*COLS + col] != 0)
+			return false;
+
+		for(int r = Math.max(0, row - REACH); r <= Math.min(ROWS - 1, row + REACH); r++) {
+			for(int c = Math.max(0, col - REACH); c <= Math.min(COLS - 1, col + REACH); c++) {
+				int other = grid[r*COLS + c] - 1;
+				if(other < 0)
+					continue;
+				double dx = x - xs[other], dy = y - ys[other];
+				if(dx*dx + dy*dy < PodWorld.CHECK_SPACING*PodWorld.CHECK_SPACING)
+					return false;
+			}
+		}
+
+		xs[idx] = x;
+		ys[idx] = y;
+		usedCells[idx] = row*COLS + col;
+		grid[usedCells[idx]] = idx + 1;
+		return true;
+	}
+
+	/**
+	 * Empty the cells used by the first n checkpoints.
+	 */
+	private void clear(int n) {
+		for(int i=0; i<n; i++)
+			grid[usedCells[i]] = 0;
+	}
+
+	/**
+	 * Generate a corpus of tracks in parallel. The tracks are generated in blocks, each with its own random
+	 * generator split in order from the given one, so the result doesn't depend on the number of threads.
+	 * Duplicate tracks are only kept once, so the corpus may end up with slightly fewer tracks than requested.
+	 * @param count Number of tracks to generate
+	 * @param random
+	 * @param pool
+	 * @return
+	 */
+	public static TrackCorpus generate(int count, RandomSource random, ForkJoinPool pool) {
+		int numTasks = (count + TRACKS_PER_TASK - 1) / TRACKS_PER_TASK;
+		List<GenerateTask> tasks = new ArrayList<GenerateTask>(numTasks);
+		for(int i=0; i<numTasks; i++) {
+			int n = Math.min(TRACKS_PER_TASK, count - i*TRACKS_PER_TASK);
+			tasks.add(new GenerateTask(n, random.split()));
+		}
+		for(GenerateTask task : tasks)
+			pool.execute(task);
+
+		TrackCorpus corpus = new TrackCorpus();
+		for(GenerateTask task : tasks) {
+			for(List<Vec> track : task.join())
+				corpus.addIfAbsent(track);
+		}
+		return corpus;
+	}
+
+	private static class GenerateTask extends RecursiveTask<List<List<Vec>>> {
+		private static final long serialVersionUID = 1L;
+		private final int count;
+		private final RandomSource random;
+
+		GenerateTask(int count, RandomSource random) {
+			this.count = count;
+			this.random = random;
+		}
+
+		@Override
+		protected List<List<Vec>> compute() {
+			TrackGenerator generator = new TrackGenerator();
+			List<List<Vec>> tracks = new ArrayList<List<Vec>>(count);
+			for(int i=0; i<count; i++)
+				tracks.add(generator.generate(random));
+			return tracks;
+		}
+	}
+}
@@ -0,0 +1,153 @@
+package pods.world;
+
+import java.util.List;
+
+import util.Vec;
+
+/**
+ * Immutable geometry of a track, computed once when the PodWorld is built so that scoring and feature
+ * extraction are table lookups rather than vector math.
+ * <br>Leg i goes from checkpoint i to checkpoint i+1 (the last leg wraps around to checkpoint 0). Pods start on
+ * the last checkpoint, and a lap ends when they pass it again.
+ */
+public class TrackGeometry {
+	private final int numChecks;
+	private final double[] checkX, checkY;
+	private final double[] legX, legY, legLength, legDirX, legDirY;
+	/**
+	 * For each checkpoint, the distance along the legs from it to the end of the lap
+	 */
+	private final double[] toLapEnd;
+	/**
+	 * For each checkpoint, the signed angle between the leg arriving at it and the one leaving it
+	 */
+	private final double[] turnAngle;
+	private final double lapLength;
+
+	public TrackGeometry(List<Vec> checks) {
+		numChecks = checks.size();
+		checkX = new double[numChecks];
+		checkY = new double[numChecks];
+		for(int i=0; i<numChecks; i++) {
+			checkX[i] = checks.get(i).x;
+			checkY[i] = checks.get(i).y;
+		}
+
+		legX = new double[numChecks];
+		legY = new double[numChecks];
+		legLength = new double[numChecks];
+		legDirX = new double[numChecks];
+		legDirY = new double[numChecks];
+		double total = 0;
+		for(int i=0; i<numChecks; i++) {
+			int next = (i + 1) % numChecks;
+			legX[i] = checkX[next] - checkX[i];
+			legY[i] = checkY[next] - checkY[i];
+			legLength[i] = Math.sqrt(legX[i]*legX[i] + legY[i]*legY[i]);
+			if(legLength[i] > 0) {
+				legDirX[i] = legX[i] / legLength[i];
+				legDirY[i] = legY[i] / legLength[i];
+			}
+			total += legLength[i];
+		}
+		lapLength = total;
+
+		// The last checkpoint ends the lap, so the distance from it is 0
+		toLapEnd = new double[numChecks];
+		for(int i=numChecks-2; i>=0; i--)
+			toLapEnd[i] = toLapEnd[i+1] + legLength[i];
+
+		turnAngle = new double[numChecks];
+		for(int i=0; i<numChecks; i++) {
+			int prev = (i + numChecks - 1) % numChecks;
+			double cross = legDirX[prev]*legDirY[i] - legDirY[prev]*legDirX[i];
+			double dot = legDirX[prev]*legDirX[i] + legDirY[prev]*legDirY[i];
+			turnAngle[i] = Math.atan2(cross, dot);
+		}
+	}
+
+	public int numChecks() {
+		return numChecks;
+	}
+
+	public double checkX(int check) {
+		return checkX[check];
+	}
+
+	public double checkY(int check) {
+		return checkY[check];
+	}
+
+	/**
+	 * Index of the checkpoint after the given one
+	 */
+	public int following(int check) {
+		return check + 1 < numChecks ? check + 1 : 0;
+	}
+
+	/**
+	 * X coordinate of the vector from the given checkpoint to the following one
+	 */
+	public double legX(int check) {
+		return legX[check];
+	}
+
+	/**
+	 * Y coordinate of the vector from the given checkpoint to the following one
+	 */
+	public double legY(int check) {
+		return legY[check];
+	}
+
+	/**
+	 * Distance from the given checkpoint to the following one
+	 */
+	public double legLength(int check) {
+		return legLength[check];
+	}
+
+	/**
+	 * X coordinate of the unit vector from the given checkpoint to the following one
+	 */
+	public double legDirX(int check) {
+		return legDirX[check];
+	}
+
+	/**
+	 * Y coordinate of the unit vector from the given checkpoint to the following one
+	 */
+	public double legDirY(int check) {
+		return legDirY[check];
+	}
+
+	/**
+	 * Distance along the track from the given checkpoint to the end of the lap (the last checkpoint)
+	 */
+	public double toLapEnd(int check) {
+		return toLapEnd[check];
+	}
+
+	/**
+	 * Distance along the track from the given checkpoint to the end of the race
+	 * @param check
+	 * @param lapsLeft Number of laps left after the current one
+	 * @return
+	 */
+	public double toFinish(int check, int lapsLeft) {
+		return toLapEnd[check] + lapsLeft * lapLength;
+	}
+
+	/**
+	 * Signed angle by which the track turns at the given checkpoint, in [-PI, PI]
+	 */
+	public double turnAngle(int check) {
+		return turnAngle[check];
+	}
+
+	/**
+	 * Total length of one lap
+	 */
+	public double lapLength() {
+		return lapLength;
+	}
+}
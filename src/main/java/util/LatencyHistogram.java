@@ -0,0 +1,140 @@
+package util;
+
+import java.util.Arrays;
+
+/**
+ * Histogram of durations (or any non-negative longs) with log-linear buckets, in the style of HdrHistogram:
+ * values are exact below 128, and above that each power of 2 is split into 64 buckets, so any value is known
+ * to within 1/64 (about 1.6%). The buckets cover the whole range of long in a fixed array of a few thousand
+ * counts, so recording is just an index computation and an increment.
+ * <br>This is not thread-safe: use one histogram per thread, and {@link #add(LatencyHistogram)} them afterwards.
+ */
+public class LatencyHistogram {
+	/**
+	 * Each power of 2 (above 2^SUB_BITS) is split into 2^(SUB_BITS-1) buckets
+	 */
+	private static final int SUB_BITS = 7;
+	private static final int HALF = 1 << (SUB_BITS - 1);
+	private static final int NUM_BUCKETS = HALF * (64 - SUB_BITS + 2);
+
+	private final long[] counts = new long[NUM_BUCKETS];
+	private long count = 0, total = 0;
+	private long min = Long.MAX_VALUE, max = 0;
+
+	/**
+	 * Record one value.
+	 * @param value Must not be negative
+	 */
+	public void record(long value) {
+		if(value < 0)
+			throw new IllegalArgumentException("Cannot record a negative value: " + value);
+		counts[index(value)]++;
+		count++;
+		total += value;
+		if(value < min)
+			min = value;
+		if(value > max)
+			max = value;
+	}
+
+	private static int index(long value) {
+		int shift = Math.max(0, 64 - Long.numberOfLeadingZeros(value) - SUB_BITS);
+		return HALF * shift + (int) (value >>> shift);
+	}
+
+	/**
+	 * Highest value that falls into the given bucket
+	 */
+	private static long highestInBucket(int index) {
+		int shift = index < 2*HALF ? 0 : index / HALF - 1;
+		long sub = index - HALF * shift;
+		return ((sub + 1) << shift) - 1;
+	}
+
+	/**
+	 * Add all the values of the other histogram to this one.
+	 * @param other
+	 */
+	public void add(LatencyHistogram other) {
+		for(int i=0; i<NUM_BUCKETS; i++)
+			counts[i] += other.counts[i];
+		count += other.count;
+		total += other.total;
+		min = Math.min(min, other.min);
+		max = Math.max(max, other.max);
+	}
+
+	public void reset() {
+		Arrays.fill(counts, 0);
+		count = 0;
+		total = 0;
+		min = Long.MAX_VALUE;
+		max = 0;
+	}
+
+	/**
+	 * Number of values recorded
+	 */
+	public long count() {
+		return count;
+	}
+
+	/**
+	 * Smallest value recorded, or 0 if there are none
+	 */
+	public long min() {
+		return count == 0 ? 0 : min;
+	}
+
+	/**
+	 * Largest value recorded (exact), or 0 if there are none
+	 */
+	public long max() {
+		return max;
+	}
+
+	public double mean() {
+		return count == 0 ? Double.NaN : (double) total / count;
+	}
+
+	/**
+	 * Get the given percentile of the recorded values, to within the precision of the buckets.
+	 * @param p Between 0 and 100
+	 * @return The highest value of the bucket holding the percentile (never more than max()), or 0 if there are
+	 * no values
+	 */
+	public long percentile(double p) {
+		if(count == 0)
+			return 0;
+		long rank = Math.max(1, (long) Math.ceil(p / 100. * count));
+		long seen = 0;
+		for(int i=0; i<NUM_BUCKETS; i++) {
+			seen += counts[i];
+			if(seen >= rank)
+				return Math.min(highestInBucket(i), max);
+		}
+		return max;
+	}
+
+	/**
+	 * Number of recorded values strictly greater than the given one, to within the precision of the buckets
+	 * (all the values in the bucket holding the limit are counted as below it).
+	 * @param limit
+	 * @return
+	 */
+	public long countAbove(long limit) {
+		long above = 0;
+		for(int i=index(limit)+1; i<NUM_BUCKETS; i++)
+			above += counts[i];
+		return above;
+	}
+
+	/**
+	 * Summary of the distribution, assuming the values are nanoseconds.
+	 */
+	@Override
+	public String toString() {
+		return String.format("n %d  mean %.3f ms  p50 %.3f ms  p90 %.3f ms  p99 %.3f ms  max %.3f ms",
+				count, mean() / 1e6, percentile(50) / 1e6, percentile(90) / 1e6, percentile(99) / 1e6, max() / 1e6);
+	}
+}
@@ -62,9 +62,21 @@ public class Matrix {
 	 * @return
 	 */
 	public static Matrix random(int r, int c, double scale) {
+		return random(r, c, scale, RandomSource.current());
+	}
+	
+	/**
+	 * Same as {@link #random(int, int, double)}, using the given source of randomness.
+	 * @param r
+	 * @param c
+	 * @param scale The random values will vary from (-scale/2, scale/2)
+	 * @param random
+	 * @return
+	 */
+	public static Matrix random(int r, int c, double scale, RandomSource random) {
 		Matrix m = new Matrix(r, c);
 		for(int i=0; i<m.data.length; i++) {
-			m.data[i] = (Math.random() - Math.random())*scale;
+			m.data[i] = (random.nextDouble() - random.nextDouble())*scale;
 		}
 		return m;
 	}
@@ -105,21 +117,34 @@ public class Matrix {
 			throw new IllegalArgumentException("Incompatible dimensions: I have " + cols + " cols, but m has " + m.rows + " rows");
 		*/
 		Matrix p = new Matrix(rows, m.cols);
+		// Row by row of m rather than column by column, so that wide matrices (e.g. a batch of inputs) are read
+		// in order. Each element still sums its products in the same order, so the result is the same.
 		for(int r=0; r<p.rows; r++) {
-			for(int c=0; c<p.cols; c++) {
-				// this.row r . m.col c
-				double rc = 0;
-				for(int i=0; i<cols; i++) {
-					//rc += data[r*cols + i] * m.data[i*m.cols + c];
-					rc += at(r,i) * m.at(i,c);
-				}
-				//p.data[p.cols*r + c] = rc;
-				p.set(r, c, rc);
+			int pRow = r*p.cols;
+			for(int i=0; i<cols; i++) {
+				double a = data[r*cols + i];
+				int mRow = i*m.cols;
+				for(int c=0; c<p.cols; c++)
+					p.data[pRow + c] += a * m.data[mRow + c];
 			}
 		}
 		return p;
 	}
 	
+	/**
+	 * Add the given column vector to every column of this Matrix. Note that this will CHANGE the matrix!
+	 * @param col A Matrix with a single column, and as many rows as this one
+	 * @return this
+	 */
+	public Matrix plusColumnEquals(Matrix col) {
+		for(int r=0; r<rows; r++) {
+			double v = col.data[r];
+			for(int c=0; c<cols; c++)
+				data[r*cols + c] += v;
+		}
+		return this;
+	}
+	
 	/**
 	 * Multiply the transpose of this times m
 	 * @param m
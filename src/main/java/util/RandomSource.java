@@ -0,0 +1,104 @@
+package util;
+
+import java.util.SplittableRandom;
+
+/**
+ * Source of random numbers for the whole project, to use instead of Math.random().
+ * <br>Math.random() shares one synchronized generator between all threads, and cannot be seeded. Here, every
+ * thread has its own generator (see {@link #current()}), and all of them are split from a single run seed (see
+ * {@link #setRunSeed(long)}), so there is no contention between threads and runs can be reproduced.
+ * <br>Threads that are created lazily (e.g. by a fork-join pool) get their generators in whatever order they
+ * first ask for one. For a parallel run to be reproducible, split one generator per task in a fixed order on the
+ * calling thread, and install it in the worker with {@link #setCurrent(RandomSource)}.
+ */
+public final class RandomSource {
+	/**
+	 * Name of the system property that can be used to set the run seed.
+	 */
+	public static final String SEED_PROPERTY = "pods.seed";
+
+	/**
+	 * Generator from which the generators of all threads are split.
+	 */
+	private static SplittableRandom root = new SplittableRandom(Long.getLong(SEED_PROPERTY, System.nanoTime()));
+
+	private static final ThreadLocal<RandomSource> current = new ThreadLocal<RandomSource>() {
+		@Override
+		protected RandomSource initialValue() {
+			return splitRoot();
+		}
+	};
+
+	private final SplittableRandom random;
+
+	/**
+	 * Create a standalone generator with the given seed.
+	 * @param seed
+	 */
+	public RandomSource(long seed) {
+		this(new SplittableRandom(seed));
+	}
+
+	private RandomSource(SplittableRandom random) {
+		this.random = random;
+	}
+
+	private static synchronized RandomSource splitRoot() {
+		return new RandomSource(root.split());
+	}
+
+	/**
+	 * Restart the whole run from the given seed. The current thread gets a fresh generator split from it; other
+	 * threads keep their generators until they are given new ones with {@link #setCurrent(RandomSource)}.
+	 * @param seed
+	 */
+	public static synchronized void setRunSeed(long seed) {
+		root = new SplittableRandom(seed);
+		current.set(new RandomSource(root.split()));
+	}
+
+	/**
+	 * Get the generator of the current thread.
+	 */
+	public static RandomSource current() {
+		return current.get();
+	}
+
+	/**
+	 * Replace the generator of the current thread.
+	 * @param source
+	 */
+	public static void setCurrent(RandomSource source) {
+		current.set(source);
+	}
+
+	/**
+	 * Create a new, independent generator from this one (e.g. to hand over to another thread).
+	 */
+	public RandomSource split() {
+		return new RandomSource(random.split());
+	}
+
+	/**
+	 * A random value in [0, 1)
+	 */
+	public double nextDouble() {
+		return random.nextDouble();
+	}
+
+	/**
+	 * A random value in [0, bound)
+	 * @param bound
+	 */
+	public int nextInt(int bound) {
+		return random.nextInt(bound);
+	}
+
+	public long nextLong() {
+		return random.nextLong();
+	}
+
+	public boolean nextBoolean() {
+		return random.nextBoolean();
+	}
+}
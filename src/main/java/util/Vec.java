@@ -43,6 +43,16 @@ public final class Vec {
 	 * @return
 	 */
 	public double getAngle() {
+		return angle(x, y);
+	}
+	
+	/**
+	 * Get the angle (rotation from 1,0) in radians of the vector (x,y), without having to build it.
+	 * @param x
+	 * @param y
+	 * @return
+	 */
+	public static double angle(double x, double y) {
 		if(x == 0) {
 			return (y > 0 ? Math.PI / 2 : Math.PI * 1.5);
 		}
@@ -3,6 +3,8 @@ package genetic;
 import org.junit.Assert;
 import org.junit.Test;
 
+import util.RandomSource;
+
 public class PopulationTest {
 
 	@Test
@@ -26,4 +28,20 @@ public class PopulationTest {
 		Population<TestIndividual> pop = new Population<TestIndividual>(Population.MIN_POP_SIZE, factory);
 		pop.newGeneration();
 	}
+	
+	@Test
+	public void testGivenRandomSource() {
+		RandomSource old = RandomSource.current();
+		try {
+			RandomSource.setCurrent(new RandomSource(9));
+			Population<TestIndividual> pop = new Population<TestIndividual>(10, new TestIndividualFactory());
+			pop.setVerbose(false);
+			pop.setRandom(new RandomSource(1));
+			pop.newGeneration();
+			// The selection didn't draw anything from the generator of the thread
+			Assert.assertEquals(new RandomSource(9).nextInt(1000000), RandomSource.current().nextInt(1000000));
+		} finally {
+			RandomSource.setCurrent(old);
+		}
+	}
 }
@@ -5,15 +5,26 @@ import genetic.Population;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 
+import pods.controller.Controller;
+import pods.controller.ControllerFactory;
 import pods.controller.SimpleController;
+import pods.controller.TimedController;
+import pods.controller.nn.EvaluationContext;
 import pods.controller.nn.GeNNController;
 import pods.controller.nn.GeNNControllerFactory;
 import pods.controller.tree.TreeSearchController;
 import pods.world.Drawer;
 import pods.world.PodInfo;
 import pods.world.PodWorld;
+import pods.world.RaceRunner;
+import pods.world.TrackCorpus;
+import pods.world.TrackGenerator;
+import util.RandomSource;
 import util.Vec;
 
 public class Experiments {
@@ -27,6 +38,26 @@ public class Experiments {
 		new Drawer(world);
 	}
 	
+	public void benchmark() {
+		TrackCorpus tracks = TrackGenerator.generate(200, RandomSource.current(), ForkJoinPool.commonPool());
+		
+		Map<String, ControllerFactory> factories = new LinkedHashMap<String, ControllerFactory>();
+		factories.put("simple", new ControllerFactory() {
+			public Controller build(PodWorld world) {
+				return new SimpleController();
+			}
+		});
+		factories.put("tree", new ControllerFactory() {
+			public Controller build(PodWorld world) {
+				return new TreeSearchController(world, false);
+			}
+		});
+		
+		RaceRunner runner = new RaceRunner(tracks);
+		runner.setTurnBudget(TimedController.DEFAULT_BUDGET_NANOS);
+		System.out.println(runner.run(factories));
+	}
+	
 	public void testTree() {
 //		PodWorld world = new PodWorld(Arrays.asList(MID, MID.scale(1.5, 0.5)));
 		PodWorld world = new PodWorld(5);
@@ -38,29 +69,29 @@ public class Experiments {
 	}
 	
 	public void testClimb() {
-		HashSet<PodWorld> worlds = buildWorlds(7);
-		GeNNController.prepare(worlds);
+		List<PodWorld> worlds = buildWorlds(7);
+		EvaluationContext context = new EvaluationContext(worlds);
 		
-		GeNNController indiv = new GeNNController(10);
+		GeNNController indiv = new GeNNController(context, 10);
 		
-		GeNNController.STEPS_FOR_FITNESS = 5;
-		System.out.println("Steps: " + GeNNController.STEPS_FOR_FITNESS);
+		context.setSteps(5);
+		System.out.println("Steps: " + context.getSteps());
 		for(int i=0; i<10000; i++) {
 			indiv = indiv.climb();
 			if(i%100 == 0)
 				System.out.println("Best fitness: " + indiv.fitness());
 		}
 		
-		GeNNController.STEPS_FOR_FITNESS = 15;
-		System.out.println("Steps: " + GeNNController.STEPS_FOR_FITNESS);
+		context.setSteps(15);
+		System.out.println("Steps: " + context.getSteps());
 		for(int i=0; i<5000; i++) {
 			indiv = indiv.climb();
 			if(i%100 == 0)
 				System.out.println("Best fitness: " + indiv.fitness());
 		}
 		
-		GeNNController.STEPS_FOR_FITNESS = 50;
-		System.out.println("Steps: " + GeNNController.STEPS_FOR_FITNESS);
+		context.setSteps(50);
+		System.out.println("Steps: " + context.getSteps());
 		for(int i=0; i<1000; i++) {
 			indiv = indiv.climb();
 			if(i%100 == 0)
@@ -75,23 +106,24 @@ public class Experiments {
 	}
 	
 	public void testEvolve() {
-		HashSet<PodWorld> worlds = buildWorlds(7);
-		GeNNController.prepare(worlds);
+		List<PodWorld> worlds = buildWorlds(7);
+		EvaluationContext context = new EvaluationContext(worlds);
 		System.out.println("Number of worlds: " + worlds.size());
 		
-		Population<GeNNController> population = new Population<GeNNController>(500, new GeNNControllerFactory());
-		GeNNController.STEPS_FOR_FITNESS = 5;
+		Population<GeNNController> population = new Population<GeNNController>(500, new GeNNControllerFactory(context));
+		population.setPool(ForkJoinPool.commonPool());
+		context.setSteps(5);
 		for(int i=0; i<100; i++) {
 			if(i % 10 == 0) {
-				GeNNController.setupNextTest();
+				context.nextTest();
 			}
 			population.newGeneration();
 		}
 		
-		GeNNController.STEPS_FOR_FITNESS = 15;
+		context.setSteps(15);
 		for(int i=0; i<100; i++) {
 			if(i % 10 == 0) {
-				GeNNController.setupNextTest();
+				context.nextTest();
 			}
 			population.newGeneration();
 		}
@@ -108,14 +140,14 @@ public class Experiments {
 	}
 	
 	public void testBackprop() {
-		HashSet<PodWorld> worlds = buildWorlds(7);
-		GeNNController.prepare(worlds);
+		List<PodWorld> worlds = buildWorlds(7);
+		EvaluationContext context = new EvaluationContext(worlds);
 		
-		GeNNController genn = new GeNNController(10);
+		GeNNController genn = new GeNNController(context, 10);
 		SimpleController hero = new SimpleController();
 		
 		for(int i=0; i<1000; i++) {
-			GeNNController.setupNextTest();
+			context.nextTest();
 			genn.imitate(hero);
 			
 			genn.clearFitness();
@@ -127,8 +159,8 @@ public class Experiments {
 		new Drawer(world);
 	}
 
-	private static HashSet<PodWorld> buildWorlds(int slices) {
-		HashSet<PodWorld> worlds = new HashSet<PodWorld>();
+	private static List<PodWorld> buildWorlds(int slices) {
+		List<PodWorld> worlds = new ArrayList<PodWorld>();
 		boolean dist = false;
 		for(double angle = 0; angle < 2.*Math.PI; angle += 2.*Math.PI/slices) {
 			dist = !dist;
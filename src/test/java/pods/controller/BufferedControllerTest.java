@@ -0,0 +1,74 @@
+package pods.controller;
+
+import static org.junit.Assert.*;
+
+import java.lang.management.ManagementFactory;
+
+import org.junit.Test;
+
+import pods.world.BatchPodWorld;
+import pods.world.PodInfo;
+import pods.world.PodWorld;
+
+public class BufferedControllerTest {
+	@Test
+	public void sameAsLegacyPlay() {
+		PodWorld world = new PodWorld(5);
+		world.addPlayer(new SimpleController());
+		SimpleController c = new SimpleController();
+		PlayInput in = new PlayInput();
+		PlayOutput out = new PlayOutput();
+		for(int i=0; i<100; i++) {
+			world.step();
+			PodInfo pod = world.getPods().get(0);
+			PlayOutput expected = c.play(pod.buildPlayInfo(world.getCheckpoints()));
+			pod.fillPlayInput(in, world.getGeometry());
+			c.play(in, out);
+			assertEquals(expected.getDir(), out.getDir());
+			assertEquals(expected.getThrust(), out.getThrust());
+		}
+	}
+
+	@Test
+	public void legacyControllerThroughAdapter() {
+		PodWorld world = new PodWorld(4);
+		final int[] calls = new int[1];
+		Controller legacy = new Controller() {
+			public PlayOutput play(PlayInput pi) {
+				calls[0]++;
+				return new SimpleController().play(pi);
+			}
+		};
+		world.addPlayer(legacy);
+		world.addPlayer(new SimpleController());
+		for(int i=0; i<50; i++) {
+			world.step();
+			assertEquals(world.getLastPlay(0).getDir(), world.getLastPlay(1).getDir());
+		}
+		assertEquals(50, calls[0]);
+		assertEquals(world.getPods().get(0).pos, world.getPods().get(1).pos);
+	}
+
+	@Test
+	public void batchStepDoesNotAllocate() {
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		BatchPodWorld batch = new BatchPodWorld(new PodWorld(5), 64);
+		BufferedController c = new SimpleController();
+		PlayInput in = new PlayInput();
+		PlayOutput out = new PlayOutput();
+		for(int i=0; i<1000; i++) {
+			batch.play(c, in, out);
+			batch.step();
+		}
+
+		long id = Thread.currentThread().getId();
+		long before = threads.getThreadAllocatedBytes(id);
+		for(int i=0; i<10000; i++) {
+			batch.play(c, in, out);
+			batch.step();
+		}
+		long allocated = threads.getThreadAllocatedBytes(id) - before;
+		// Allow for the measurement itself, but not for anything proportional to the number of steps
+		assertTrue("Allocated " + allocated + " bytes", allocated < 10000);
+	}
+}
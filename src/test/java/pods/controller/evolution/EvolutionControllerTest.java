@@ -0,0 +1,100 @@
+package pods.controller.evolution;
+
+import static org.junit.Assert.*;
+
+import genetic.Population;
+
+import org.junit.Test;
+
+import pods.controller.PlayInput;
+import pods.controller.SimpleController;
+import pods.controller.tree.PodTree;
+import pods.world.PodInfo;
+import pods.world.PodWorld;
+import util.RandomSource;
+
+public class EvolutionControllerTest {
+	/**
+	 * The pod of a player on a new world, before its first turn
+	 */
+	private static PodInfo firstPod(PodWorld world) {
+		SimpleController player = new SimpleController();
+		world.addPlayer(player);
+		return world.getPod(player);
+	}
+
+	@Test
+	public void fitnessIsTheSimulatedScore() {
+		PodWorld world = new PodWorld(5, new RandomSource(1));
+		PodInfo start = firstPod(world);
+		Plan plan = new Plan(world, start, 6, new RandomSource(1));
+		PodInfo pod = start;
+		for(int i=0; i<plan.length(); i++) {
+			assertTrue(Math.abs(plan.turn(i)) <= PodWorld.MAX_TURN);
+			assertTrue(plan.thrust(i) >= 0 && plan.thrust(i) <= 100);
+			pod = world.stepTest(pod, plan.turn(i), plan.thrust(i));
+		}
+		assertEquals(pod.score(world), plan.fitness() - 200);
+	}
+
+	@Test
+	public void shiftDropsTheFirstPlay() {
+		PodWorld world = new PodWorld(5, new RandomSource(1));
+		PodInfo start = firstPod(world);
+		Plan plan = new Plan(world, start, 6, new RandomSource(1));
+		Plan shifted = plan.shift(world.stepTest(start, plan.turn(0), plan.thrust(0)));
+		assertEquals(plan.length(), shifted.length());
+		for(int i=0; i<plan.length()-1; i++) {
+			assertEquals(plan.turn(i+1), shifted.turn(i), 0);
+			assertEquals(plan.thrust(i+1), shifted.thrust(i));
+		}
+		assertEquals(plan.turn(plan.length()-1), shifted.turn(plan.length()-1), 0);
+	}
+
+	@Test
+	public void mutationsStayInRange() {
+		PodWorld world = new PodWorld(5, new RandomSource(1));
+		PodInfo start = firstPod(world);
+		RandomSource random = new RandomSource(2);
+		Plan plan = new Plan(world, start, 6, random), partner = new Plan(world, start, 6, random);
+		for(int i=0; i<200; i++) {
+			plan = plan.crossover(partner, i % 2 == 0 ? Plan.UNIFORM : Plan.ONE_POINT);
+			plan.mutate(i % 3 == 0 ? Plan.MUTATE_ONE : Plan.MUTATE_ALL);
+			for(int j=0; j<plan.length(); j++) {
+				assertTrue(Math.abs(plan.turn(j)) <= PodWorld.MAX_TURN);
+				assertTrue(plan.thrust(j) >= 0 && plan.thrust(j) <= 100);
+			}
+		}
+	}
+
+	@Test
+	public void warmStartIsTheFirstMember() {
+		PodWorld world = new PodWorld(5, new RandomSource(1));
+		PodInfo start = firstPod(world);
+		RandomSource random = new RandomSource(2);
+		Plan warmStart = new Plan(world, start, 6, random);
+		Population<Plan> population = new Population<Plan>(EvolutionController.DEFAULT_POPULATION,
+				new PlanFactory(world, start, 6, random, warmStart));
+		assertSame(warmStart, population.getPopulation().iterator().next());
+		assertEquals(EvolutionController.DEFAULT_POPULATION, population.getPopulation().size());
+	}
+
+	@Test
+	public void warmStartIsNeverLost() {
+		PodWorld world = new PodWorld(4, new RandomSource(3));
+		// A single generation: only elitism can keep the warm start
+		EvolutionController c = new EvolutionController(world, true, EvolutionController.DEFAULT_HORIZON,
+				EvolutionController.DEFAULT_POPULATION, 1, PodTree.NO_DEADLINE, new RandomSource(5));
+		PlayInput pi = new PlayInput();
+		world.step();
+		for(int i=0; i<50; i++) {
+			Plan previous = c.getBest();
+			// What the controller sees of its pod
+			world.getPod(c).fillPlayInput(pi, world.getGeometry());
+			Plan warmStart = previous.shift(PodInfo.fromPlayInput(pi));
+			world.step();
+			assertTrue(c.getBest().fitness() + " < " + warmStart.fitness(),
+					c.getBest().fitness() >= warmStart.fitness());
+		}
+	}
+}
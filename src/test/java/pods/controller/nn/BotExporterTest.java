@@ -0,0 +1,125 @@
+package pods.controller.nn;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import pods.controller.PlayInput;
+import pods.controller.PlayOutput;
+import util.RandomSource;
+import util.Vec;
+
+public class BotExporterTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/**
+	 * Compile the exported controller and load its class.
+	 */
+	private Class<?> compile(GeNNController controller) throws Exception {
+		File dir = folder.newFolder();
+		File source = new File(dir, BotExporter.DEFAULT_CLASS_NAME + ".java");
+		BotExporter.export(controller, source.toPath());
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		assertNotNull("Needs a JDK", compiler);
+		assertEquals(0, compiler.run(null, null, null, "-d", dir.getPath(), source.getPath()));
+		ClassLoader loader = new URLClassLoader(new URL[] {dir.toURI().toURL()}, null);
+		return loader.loadClass(BotExporter.DEFAULT_CLASS_NAME);
+	}
+
+	@Test
+	public void playsLikeTheController() throws Exception {
+		GeNNController controller = new GeNNController(10, 8);
+		Class<?> bot = compile(controller);
+		Method play = bot.getDeclaredMethod("play", int.class, int.class, double.class, double.class, double.class,
+				double.class, double.class);
+		play.setAccessible(true);
+
+		RandomSource random = new RandomSource(42);
+		for(int i=0; i<200; i++) {
+			PlayInput pi = new PlayInput();
+			pi.pos = new Vec(random.nextInt(16000), random.nextInt(9000));
+			pi.vel = new Vec(random.nextInt(1200) - 600, random.nextInt(1200) - 600);
+			pi.angle = random.nextDouble() * 2 * Math.PI;
+			pi.nextCheck = new Vec(random.nextInt(16000), random.nextInt(9000));
+			PlayOutput expected = controller.play(pi);
+
+			int[] actual = (int[]) play.invoke(null, pi.posX, pi.posY, pi.velX, pi.velY, pi.angle,
+					pi.nextCheckX, pi.nextCheckY);
+			// The weights are rounded to floats, so allow for a tiny difference in the result
+			assertEquals(expected.getThrust(), actual[2], 1);
+			Vec expectedDir = expected.getDir().minus(pi.pos);
+			Vec actualDir = new Vec(actual[0], actual[1]).minus(pi.pos);
+			double angle = Math.atan2(expectedDir.x*actualDir.y - expectedDir.y*actualDir.x, expectedDir.dot(actualDir));
+			assertEquals(0, angle, 1e-3);
+		}
+	}
+
+	@Test
+	public void mainLoopAnswersForBothPods() throws Exception {
+		Class<?> bot = compile(new GeNNController(6));
+		String input = "3\n3\n1000 1000\n8000 5000\n14000 2000\n"
+				+ "1000 1500 0 0 -1 1\n1000 500 0 0 -1 1\n1000 2000 0 0 -1 1\n1000 0 0 0 -1 1\n"
+				+ "1100 1500 85 0 0 1\n1100 500 80 10 5 1\n1000 2000 0 0 0 1\n1000 0 0 0 0 1\n";
+		InputStream oldIn = System.in;
+		PrintStream oldOut = System.out;
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try {
+			System.setIn(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)));
+			System.setOut(new PrintStream(out, true, "UTF-8"));
+			Method main = bot.getMethod("main", String[].class);
+			main.setAccessible(true);
+			main.invoke(null, (Object) new String[0]);
+			fail("The main loop only stops at the end of the input");
+		} catch(InvocationTargetException e) {
+			// Scanner runs out of input
+		} finally {
+			System.setIn(oldIn);
+			System.setOut(oldOut);
+		}
+		String[] lines = new String(out.toByteArray(), StandardCharsets.UTF_8).trim().split("\n");
+		assertEquals(4, lines.length);
+		for(String line : lines)
+			assertTrue(line, line.matches("-?\\d+ -?\\d+ \\d+"));
+	}
+
+	@Test
+	public void largeNetworkFitsInOneFile() throws Exception {
+		// 6*120 + 120*120 + 120*3 weights and 243 biases, at about 5.3 characters each
+		GeNNController controller = new GeNNController(120, 120);
+		String source = BotExporter.export(controller);
+		assertTrue("" + source.length(), source.length() <= BotExporter.MAX_SOURCE_LENGTH);
+		compile(controller);
+	}
+
+	@Test
+	public void deepNetworkCompiles() throws Exception {
+		// Every layer is small enough to unroll, but not all of them together
+		GeNNController controller = new GeNNController(44, 44, 44, 44);
+		String source = BotExporter.export(controller);
+		assertTrue("" + source.length(), source.length() <= BotExporter.MAX_SOURCE_LENGTH);
+		assertTrue(source.contains("static void layer0() {\n\t\ta1[0] = s("));
+		compile(controller);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void tooLargeNetworkIsRejected() {
+		BotExporter.export(new GeNNController(200, 200));
+	}
+}
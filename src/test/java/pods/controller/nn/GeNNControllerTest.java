@@ -1,10 +1,13 @@
 package pods.controller.nn;
 
+import java.util.Arrays;
+
 import org.junit.Assert;
 import org.junit.Test;
 
 import pods.controller.PlayInput;
 import pods.controller.PlayOutput;
+import pods.world.PodWorld;
 import util.Matrix;
 import util.Vec;
 
@@ -34,6 +37,46 @@ public class GeNNControllerTest {
 		}
 	}
 	
+	@Test
+	public void batchFitnessSameAsWorld() {
+		PodWorld world = new PodWorld(Arrays.asList(new Vec(9000, 2000), new Vec(12000, 7000), new Vec(4000, 5000)));
+		EvaluationContext context = new EvaluationContext(Arrays.asList(world));
+		for(int i=0; i<5; i++) {
+			GeNNController c = new GeNNController(context, 10);
+			Assert.assertEquals(c.calculateFitnessInWorld(), c.fitness());
+		}
+	}
+	
+	@Test
+	public void parallelFitness() throws InterruptedException {
+		PodWorld world = new PodWorld(Arrays.asList(new Vec(9000, 2000), new Vec(12000, 7000), new Vec(4000, 5000)));
+		EvaluationContext context = new EvaluationContext(Arrays.asList(world));
+		final GeNNController[] controllers = new GeNNController[16];
+		long[] expected = new long[controllers.length];
+		for(int i=0; i<controllers.length; i++) {
+			controllers[i] = new GeNNController(context, 10);
+			expected[i] = controllers[i].fitness();
+			controllers[i].clearFitness();
+		}
+		
+		Thread[] threads = new Thread[4];
+		for(int t=0; t<threads.length; t++) {
+			final int first = t;
+			threads[t] = new Thread(new Runnable() {
+				public void run() {
+					for(int i=first; i<controllers.length; i+=4)
+						controllers[i].fitness();
+				}
+			});
+			threads[t].start();
+		}
+		for(Thread t : threads)
+			t.join();
+		
+		for(int i=0; i<controllers.length; i++)
+			Assert.assertEquals(expected[i], controllers[i].fitness());
+	}
+	
 	@Test
 	public void testWorldToNN() {
 		PlayInput pi = new PlayInput();
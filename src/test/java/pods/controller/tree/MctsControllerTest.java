@@ -0,0 +1,122 @@
+package pods.controller.tree;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import pods.controller.ControllerAdapter;
+import pods.controller.PlayInput;
+import pods.controller.PlayOutput;
+import pods.controller.RandomController;
+import pods.controller.SimpleController;
+import pods.controller.nn.GeNNController;
+import pods.world.PodInfo;
+import pods.world.PodWorld;
+import util.RandomSource;
+
+public class MctsControllerTest {
+	private static MctsController build(PodWorld world, long seed) {
+		return new MctsController(world, true, ActionSet.DEFAULT, new SimpleController(), 300, PodTree.NO_DEADLINE,
+				new RandomSource(seed));
+	}
+
+	private static int progress(PodWorld world, PodInfo pod) {
+		return pod.laps * world.getCheckpoints().size() + pod.nextCheck;
+	}
+
+	@Test
+	public void sameSeedSamePlays() {
+		PodWorld a = new PodWorld(4, new RandomSource(1)), b = new PodWorld(4, new RandomSource(1));
+		build(a, 7);
+		build(b, 7);
+		for(int i=0; i<30; i++) {
+			a.step();
+			b.step();
+			assertEquals(a.getLastPlay(0).getDir(), b.getLastPlay(0).getDir());
+			assertEquals(a.getLastPlay(0).getThrust(), b.getLastPlay(0).getThrust());
+		}
+	}
+
+	@Test
+	public void keepsUpWithTheSimpleController() {
+		PodWorld world = new PodWorld(4, new RandomSource(3));
+		MctsController c = build(world, 5);
+		world.addPlayer(new SimpleController());
+		for(int i=0; i<150; i++)
+			world.step();
+		assertEquals(300, c.getLastIterations());
+		assertTrue(progress(world, world.getPods().get(0)) + " vs " + progress(world, world.getPods().get(1)),
+				progress(world, world.getPods().get(0)) >= progress(world, world.getPods().get(1)) - 1);
+	}
+
+	@Test
+	public void poolIsReused() {
+		PodWorld world = new PodWorld(4, new RandomSource(3));
+		MctsController c = build(world, 5);
+		for(int i=0; i<100; i++) {
+			world.step();
+			assertEquals(MctsTree.DEFAULT_CAPACITY, c.getTree().capacity());
+		}
+	}
+
+	@Test
+	public void rolloutsEndAtTheHorizon() {
+		PodWorld world = new PodWorld(4, new RandomSource(3));
+		final int[] turns = new int[1];
+		SimpleController policy = new SimpleController() {
+			@Override
+			public void play(PlayInput in, PlayOutput out) {
+				turns[0]++;
+				super.play(in, out);
+			}
+		};
+		SimpleController player = new SimpleController();
+		world.addPlayer(player);
+		MctsTree tree = new MctsTree(world, world.getPod(player), ActionSet.DEFAULT, policy, new RandomSource(1));
+		tree.setHorizon(4);
+		boolean shorter = false;
+		for(int i=0; i<300; i++) {
+			turns[0] = 0;
+			tree.iterate();
+			// The new node is at least one turn after the root
+			assertTrue("" + turns[0], turns[0] <= 3);
+			shorter |= turns[0] < 3;
+		}
+		// Deeper nodes get shorter rollouts
+		assertTrue(shorter);
+	}
+
+	@Test
+	public void advanceStartsTheStatisticsAgain() {
+		PodWorld world = new PodWorld(4, new RandomSource(3));
+		SimpleController player = new SimpleController();
+		world.addPlayer(player);
+		MctsTree tree = new MctsTree(world, world.getPod(player), ActionSet.DEFAULT, new SimpleController(),
+				new RandomSource(1));
+		for(int i=0; i<300; i++)
+			tree.iterate();
+		tree.advance(tree.bestChild());
+		int size = tree.size();
+		assertTrue(size > 1);
+		assertEquals(0, tree.visits(0));
+
+		// The first iteration already goes down into the kept subtree
+		tree.iterate();
+		assertEquals(size, tree.size());
+		assertEquals(1, tree.visits(0));
+		assertEquals(1, tree.visits(tree.bestChild()));
+		assertEquals(tree.mean(0), tree.mean(tree.bestChild()), 0);
+	}
+
+	@Test
+	public void otherRolloutPolicies() {
+		PodWorld world = new PodWorld(4, new RandomSource(3));
+		new MctsController(world, true, new ActionSet(3, 100), new RandomController(new RandomSource(2)), 100,
+				PodTree.NO_DEADLINE, new RandomSource(4));
+		new MctsController(world, true, new ActionSet(7, 0, 25, 50, 75, 100),
+				ControllerAdapter.of(new GeNNController(6)), 100, PodTree.NO_DEADLINE, new RandomSource(4));
+		for(int i=0; i<20; i++)
+			world.step();
+		assertEquals(2, world.getPods().size());
+	}
+}
@@ -0,0 +1,235 @@
+package pods.controller.tree;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import pods.world.PodInfo;
+import pods.world.PodWorld;
+import util.RandomSource;
+import util.Vec;
+
+public class PodTreeTest {
+	private static PodInfo start(PodWorld world) {
+		PodInfo pod = new PodInfo();
+		pod.pos = new Vec(3000, 4000);
+		pod.vel = new Vec(250, -120);
+		pod.angle = 0.7;
+		pod.nextCheck = 1;
+		return pod;
+	}
+
+	/**
+	 * Best score at the given depth, searched with PodInfo objects and PodWorld.stepTest.
+	 */
+	private static long referenceScore(PodWorld world, PodInfo pod, ActionSet actions, int depth) {
+		if(depth == 0)
+			return pod.score(world);
+		long best = -1;
+		for(int a=0; a<actions.size(); a++) {
+			PodInfo child = pod;
+			for(int i=0; i<PodTree.ADVANCE_STEPS; i++)
+				child = world.stepTest(child, actions.turn(a), actions.thrust(a));
+			best = Math.max(best, referenceScore(world, child, actions, depth-1));
+		}
+		return best;
+	}
+
+	/**
+	 * The child of the root that an exhaustive search would choose (the first one with the best score).
+	 */
+	private static int referenceChild(PodWorld world, PodTree tree, ActionSet actions, int depth) {
+		long bestScore = -1;
+		int expected = -1;
+		int first = tree.children(0);
+		for(int c=first; c<first+tree.branching(); c++) {
+			long score = referenceScore(world, tree.getPod(c), actions, depth);
+			if(expected < 0 || score > bestScore) {
+				bestScore = score;
+				expected = c;
+			}
+		}
+		return expected;
+	}
+
+	@Test
+	public void sameAsStepTest() {
+		PodWorld world = new PodWorld(5);
+		PodInfo pod = start(world);
+		PodTree tree = new PodTree(world, pod);
+		int first = tree.children(0);
+		for(int c=0; c<tree.branching(); c++) {
+			PodInfo expected = pod;
+			for(int i=0; i<PodTree.ADVANCE_STEPS; i++)
+				expected = world.stepTest(expected, tree.getTurnDelta(first + c), tree.getThrust(first + c));
+			PodInfo actual = tree.getPod(first + c);
+			assertEquals(expected.pos.x, actual.pos.x, 0);
+			assertEquals(expected.pos.y, actual.pos.y, 0);
+			assertEquals(expected.vel.x, actual.vel.x, 0);
+			assertEquals(expected.vel.y, actual.vel.y, 0);
+			assertEquals(expected.angle, actual.angle, 0);
+			assertEquals(expected.score(world), tree.score(first + c));
+		}
+	}
+
+	@Test
+	public void sameChoiceAsObjectSearch() {
+		PodWorld world = new PodWorld(5);
+		PodInfo pod = start(world);
+		PodTree tree = new PodTree(world, pod);
+		for(int depth=0; depth<6; depth++) {
+			int best = tree.bestChild(depth, PodTree.NO_DEADLINE);
+			assertEquals(referenceChild(world, tree, PodTree.DEFAULT_ACTIONS, depth), best);
+		}
+	}
+
+	@Test
+	public void pruningKeepsTheChoice() {
+		PodWorld world = new PodWorld(5);
+		ActionSet actions = new ActionSet(5, 50, 100);
+		RandomSource random = new RandomSource(7);
+		for(int i=0; i<20; i++) {
+			PodInfo pod = new PodInfo();
+			pod.pos = new Vec(random.nextInt(16000), random.nextInt(9000));
+			pod.vel = new Vec(random.nextInt(1000) - 500, random.nextInt(1000) - 500);
+			pod.angle = random.nextDouble() * 2 * Math.PI;
+			pod.nextCheck = random.nextInt(world.getGeometry().numChecks());
+			int depth = i % 4;
+			PodTree tree = new PodTree(world, pod, actions, PodTree.DEFAULT_SCHEDULE, PodTree.DEFAULT_CAPACITY);
+			assertEquals(referenceChild(world, tree, actions, depth), tree.bestChild(depth, PodTree.NO_DEADLINE));
+		}
+	}
+
+	@Test
+	public void pruningExpandsFewerNodes() {
+		PodWorld world = new PodWorld(5);
+		PodTree tree = new PodTree(world, start(world));
+		tree.bestChild(6, PodTree.NO_DEADLINE);
+		int full = 0;
+		for(int level=0, n=1; level<=7; level++, n*=3)
+			full += n;
+		assertTrue(tree.size() + " of " + full, tree.size() < full / 2);
+	}
+
+	@Test
+	public void upperBoundIsAdmissible() {
+		PodWorld world = new PodWorld(5);
+		PodTree tree = new PodTree(world, start(world));
+		for(int depth=0; depth<5; depth++) {
+			int first = tree.children(0);
+			for(int c=first; c<first+tree.branching(); c++)
+				assertTrue(referenceScore(world, tree.getPod(c), PodTree.DEFAULT_ACTIONS, depth) <= tree.upperBound(c, depth));
+		}
+	}
+
+	@Test
+	public void parallelSameAsSequential() {
+		PodWorld world = new PodWorld(5);
+		ForkJoinPool pool = new ForkJoinPool(4);
+		PodTree sequential = new PodTree(world, start(world));
+		PodTree parallel = new PodTree(world, start(world));
+		for(int turn=0; turn<20; turn++) {
+			int depth = 3 + turn % 5, split = 1 + turn % 3;
+			int expected = sequential.bestChild(depth, PodTree.NO_DEADLINE);
+			int actual = parallel.bestChild(depth, PodTree.NO_DEADLINE, pool, split);
+			// The children of the root are allocated first, so they have the same index in both trees
+			assertEquals(expected, actual);
+			sequential.advance(expected);
+			parallel.advance(actual);
+			assertEquals(sequential.getPod(0).pos, parallel.getPod(0).pos);
+		}
+		pool.shutdown();
+	}
+
+	@Test
+	public void parallelSearchGrowsTheArena() {
+		PodWorld world = new PodWorld(5);
+		ForkJoinPool pool = new ForkJoinPool(4);
+		PodTree sequential = new PodTree(world, start(world));
+		// Too small for even one level of tasks: the parallel search has to stop and start again many times
+		PodTree parallel = new PodTree(world, start(world), PodTree.DEFAULT_ACTIONS, PodTree.DEFAULT_SCHEDULE, 4);
+		for(int turn=0; turn<10; turn++) {
+			int expected = sequential.bestChild(6, PodTree.NO_DEADLINE);
+			assertEquals(expected, parallel.bestChild(6, PodTree.NO_DEADLINE, pool, 2));
+			sequential.advance(expected);
+			parallel.advance(expected);
+		}
+		assertTrue("" + parallel.capacity(), parallel.capacity() > 4);
+		pool.shutdown();
+	}
+
+	@Test
+	public void deepLevels() {
+		PodWorld world = new PodWorld(5);
+		PodTree tree = new PodTree(world, start(world), PodTree.DEFAULT_ACTIONS, new int[] {1, 2, 3}, 16);
+		// Further down than a byte can count
+		int node = 0;
+		for(int level=1; level<=300; level++) {
+			node = tree.children(node);
+			assertEquals(tree.stepsAt(level), tree.getSteps(node));
+		}
+		assertEquals(3, tree.getSteps(node));
+	}
+
+	@Test
+	public void advanceKeepsTheSubtree() {
+		PodWorld world = new PodWorld(5);
+		PodTree tree = new PodTree(world, start(world));
+		int best = tree.bestChild(4, PodTree.NO_DEADLINE);
+		PodInfo bestPod = tree.getPod(best);
+
+		tree.advance(best);
+		assertEquals(bestPod.pos, tree.getPod(0).pos);
+		// The subtree of the child has (at most, since the search prunes) 4 levels below it
+		int size = tree.size();
+		assertTrue(size > 1 + 3 && size <= 1 + 3 + 9 + 27 + 81);
+		// Searching it again doesn't go below them
+		tree.bestChild(3, PodTree.NO_DEADLINE);
+		assertTrue(tree.size() <= 1 + 3 + 9 + 27 + 81);
+	}
+
+	@Test
+	public void scheduleSetsTheStepsOfEachLevel() {
+		PodWorld world = new PodWorld(5);
+		int[] schedule = {1, 1, 2, 4};
+		PodTree tree = new PodTree(world, start(world), PodTree.DEFAULT_ACTIONS, schedule, PodTree.DEFAULT_CAPACITY);
+		int node = 0;
+		PodInfo expected = start(world);
+		for(int level=1; level<=6; level++) {
+			node = tree.children(node) + level % tree.branching();
+			int steps = schedule[Math.min(level, schedule.length) - 1];
+			assertEquals(steps, tree.getSteps(node));
+			for(int i=0; i<steps; i++)
+				expected = world.stepTest(expected, tree.getTurnDelta(node), tree.getThrust(node));
+			assertEquals(expected.pos.x, tree.getPod(node).pos.x, 0);
+			assertEquals(expected.pos.y, tree.getPod(node).pos.y, 0);
+		}
+	}
+
+	@Test
+	public void advanceFollowsTheSchedule() {
+		PodWorld world = new PodWorld(5);
+		int[] schedule = {1, 1, 2, 2, 4};
+		PodTree tree = new PodTree(world, start(world), PodTree.DEFAULT_ACTIONS, schedule, PodTree.DEFAULT_CAPACITY);
+		for(int turn=0; turn<5; turn++) {
+			tree.advance(tree.bestChild(5, PodTree.NO_DEADLINE));
+			// Nodes kept from the last search and new ones have the steps of their new level
+			int node = 0;
+			for(int level=1; level<=6; level++) {
+				node = tree.children(node);
+				assertEquals(tree.stepsAt(level), tree.getSteps(node));
+			}
+		}
+	}
+
+	@Test
+	public void memoryStaysFlat() {
+		PodWorld world = new PodWorld(5);
+		PodTree tree = new PodTree(world, start(world));
+		for(int i=0; i<200; i++)
+			tree.advance(tree.bestChild(PodTree.DEPTH, PodTree.NO_DEADLINE));
+		assertEquals(PodTree.DEFAULT_CAPACITY, tree.capacity());
+	}
+}
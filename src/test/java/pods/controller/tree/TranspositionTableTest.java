@@ -0,0 +1,120 @@
+package pods.controller.tree;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+import pods.world.PodInfo;
+import pods.world.PodWorld;
+import util.RandomSource;
+import util.Vec;
+
+public class TranspositionTableTest {
+	@Test
+	public void getWhatWasPut() {
+		TranspositionTable table = new TranspositionTable(10);
+		table.put(12345L, 3, 98765L);
+		table.put(-7L, 5, -200L);
+		assertEquals(98765L, table.get(12345L, 3));
+		assertEquals(-200L, table.get(-7L, 5));
+		// Only for the same depth
+		assertEquals(TranspositionTable.MISS, table.get(12345L, 4));
+		assertEquals(TranspositionTable.MISS, table.get(12346L, 3));
+
+		table.put(12345L, 4, 5L);
+		assertEquals(5L, table.get(12345L, 4));
+		table.clear();
+		assertEquals(TranspositionTable.MISS, table.get(12345L, 4));
+	}
+
+	@Test
+	public void deepEntriesOfTheCurrentSearchAreKept() {
+		// A single bucket
+		TranspositionTable table = new TranspositionTable(2);
+		table.put(1L << 40, 9, 1);
+		table.newSearch();
+		for(long key=1; key<100; key++)
+			table.put(key << 40 | key, 1 + (int) (key % 3), key);
+		// The entry from the older search was replaced, and the deepest ones of this search are still there
+		assertEquals(TranspositionTable.MISS, table.get(1L << 40, 9));
+		int found = 0;
+		for(long key=1; key<100; key++) {
+			long score = table.get(key << 40 | key, 1 + (int) (key % 3));
+			if(score != TranspositionTable.MISS) {
+				assertEquals(key, score);
+				found++;
+			}
+		}
+		assertEquals(TranspositionTable.BUCKET_SIZE, found);
+	}
+
+	@Test
+	public void noTornEntries() throws InterruptedException {
+		final TranspositionTable table = new TranspositionTable(6);
+		final AtomicBoolean torn = new AtomicBoolean();
+		Thread[] threads = new Thread[4];
+		for(int t=0; t<threads.length; t++) {
+			final RandomSource random = new RandomSource(t);
+			threads[t] = new Thread() {
+				@Override
+				public void run() {
+					for(int i=0; i<200000; i++) {
+						long key = random.nextInt(1000) * 0x9E3779B97F4A7C15L;
+						// The score is a function of the key, so a score from another key is a torn entry
+						long score = table.get(key, 2);
+						if(score != TranspositionTable.MISS && score != (key & 0xFFFFFFFFL))
+							torn.set(true);
+						table.put(key, 2, key & 0xFFFFFFFFL);
+					}
+				}
+			};
+			threads[t].start();
+		}
+		for(Thread thread : threads)
+			thread.join();
+		assertFalse(torn.get());
+	}
+
+	@Test
+	public void keyFollowsTheOrderOfTheSteps() {
+		PodWorld world = new PodWorld(4, new RandomSource(2));
+		PodInfo pod = new PodInfo();
+		pod.pos = new Vec(3000, 4000);
+		pod.vel = new Vec(200, 100);
+		PodTree a = new PodTree(world, pod, PodTree.DEFAULT_ACTIONS, new int[] {1, 1, 2, 1}, 16);
+		PodTree b = new PodTree(world, pod, PodTree.DEFAULT_ACTIONS, new int[] {1, 2, 1, 1}, 16);
+		// The same state at level 1, with 1, 2, 1 steps below it in a, and 2, 1, 1 in b: the same number of turns
+		int nodeA = a.children(0), nodeB = b.children(0);
+		assertEquals(a.stateHash(nodeA), b.stateHash(nodeB));
+		assertNotEquals(a.tableKey(nodeA, 2), b.tableKey(nodeB, 2));
+		assertNotEquals(a.tableKey(nodeA, 3), b.tableKey(nodeB, 3));
+		// Trees with the same schedule share their entries
+		PodTree c = new PodTree(world, pod, PodTree.DEFAULT_ACTIONS, new int[] {1, 1, 2, 1}, 16);
+		assertEquals(a.tableKey(nodeA, 3), c.tableKey(c.children(0), 3));
+	}
+
+	@Test
+	public void searchWithTable() {
+		PodWorld world = new PodWorld(4, new RandomSource(2));
+		PodInfo pod = new PodInfo();
+		pod.pos = new Vec(3000, 4000);
+		pod.vel = new Vec(200, 100);
+		PodTree plain = new PodTree(world, pod), sequential = new PodTree(world, pod), parallel = new PodTree(world, pod);
+		sequential.setTranspositionTable(new TranspositionTable(16));
+		parallel.setTranspositionTable(new TranspositionTable(16));
+		ForkJoinPool pool = new ForkJoinPool(4);
+
+		int best = plain.bestChild(7, PodTree.NO_DEADLINE);
+		assertEquals(best, sequential.bestChild(7, PodTree.NO_DEADLINE));
+		assertEquals(best, parallel.bestChild(7, PodTree.NO_DEADLINE, pool, 2));
+		// Equivalent states are only expanded once (most of them are pruned anyway)
+		assertTrue(sequential.size() <= plain.size());
+		PodTree untabled = new PodTree(world, pod);
+		untabled.bestChild(7, PodTree.NO_DEADLINE, pool, 2);
+		assertTrue(parallel.size() <= untabled.size());
+		pool.shutdown();
+	}
+}
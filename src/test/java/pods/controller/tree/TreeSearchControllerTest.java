@@ -0,0 +1,89 @@
+package pods.controller.tree;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import pods.controller.SimpleController;
+import pods.world.PodInfo;
+import pods.world.PodWorld;
+import util.RandomSource;
+
+public class TreeSearchControllerTest {
+	private static int progress(PodWorld world, PodInfo pod) {
+		return pod.laps * world.getCheckpoints().size() + pod.nextCheck;
+	}
+
+	@Test
+	public void unlimitedBudgetReachesMaxDepth() {
+		PodWorld world = new PodWorld(4);
+		TreeSearchController c = new TreeSearchController(world, true, 4, PodTree.NO_DEADLINE);
+		assertEquals(-1, c.getLastDepth());
+		for(int i=0; i<10; i++) {
+			world.step();
+			assertEquals(4, c.getLastDepth());
+		}
+	}
+
+	@Test
+	public void sameAsFullSearch() {
+		PodWorld world = new PodWorld(4);
+		TreeSearchController c = new TreeSearchController(world, true, PodTree.DEPTH, PodTree.NO_DEADLINE);
+		PodTree reference = new PodTree(new PodWorld(world.getCheckpoints()), world.getPod(c));
+		for(int i=0; i<3; i++) {
+			reference.advance(reference.bestChild(PodTree.DEPTH, PodTree.NO_DEADLINE));
+			for(int j=0; j<PodTree.ADVANCE_STEPS; j++)
+				world.step();
+			// The real step aims at a target point rather than turning by an exact angle, so allow for rounding
+			assertEquals(0, reference.getPod(0).pos.minus(world.getPod(c).pos).norm(), 1);
+		}
+	}
+
+	@Test
+	public void scheduleLooksFurtherAhead() {
+		PodWorld world = new PodWorld(4, new RandomSource(3));
+		new TreeSearchController(world, true, 6, PodTree.NO_DEADLINE, PodTree.DEFAULT_ACTIONS,
+				new int[] {1, 1, 2, 2, 4, 4});
+		world.addPlayer(new SimpleController());
+		for(int i=0; i<150; i++)
+			world.step();
+		int searched = progress(world, world.getPods().get(0)), simple = progress(world, world.getPods().get(1));
+		assertTrue(searched + " vs " + simple, searched >= simple - 1);
+	}
+
+	@Test
+	public void parallelSearchPrunesLargeActionSets() {
+		PodWorld serialWorld = new PodWorld(4, new RandomSource(5)), parallelWorld = new PodWorld(4, new RandomSource(5));
+		TreeSearchController serial = new TreeSearchController(serialWorld, true, 5, PodTree.NO_DEADLINE,
+				ActionSet.DEFAULT, PodTree.DEFAULT_SCHEDULE);
+		serial.setPool(null);
+		TreeSearchController parallel = new TreeSearchController(parallelWorld, true, 5, PodTree.NO_DEADLINE,
+				ActionSet.DEFAULT, PodTree.DEFAULT_SCHEDULE);
+		ForkJoinPool pool = new ForkJoinPool(2);
+		parallel.setPool(pool);
+		for(int i=0; i<20; i++) {
+			serialWorld.step();
+			parallelWorld.step();
+			assertEquals(serialWorld.getLastPlay(0).getDir(), parallelWorld.getLastPlay(0).getDir());
+			assertEquals(serialWorld.getLastPlay(0).getThrust(), parallelWorld.getLastPlay(0).getThrust());
+			// 10 actions at depth 5 are 10^7 leaves without pruning
+			assertTrue("" + parallel.getTree().size(), parallel.getTree().size() < 4 * serial.getTree().size() + 1000);
+		}
+		pool.shutdown();
+	}
+
+	@Test
+	public void deadlineStopsTheSearch() {
+		PodWorld world = new PodWorld(4);
+		TreeSearchController c = new TreeSearchController(world, true, 30, 5000000L);
+		world.addPlayer(new SimpleController());
+		for(int i=0; i<4; i++) {
+			world.step();
+			assertTrue(c.getLastDepth() >= 0);
+			assertTrue(c.getLastDepth() < 30);
+			assertNotNull(world.getLastPlay(0));
+		}
+	}
+}
@@ -0,0 +1,71 @@
+package pods.world;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import pods.controller.PlayOutput;
+import pods.controller.SimpleController;
+import util.Vec;
+
+public class BatchPodWorldTest {
+	@Test
+	public void sameAsStepTest() {
+		final int PODS = 21, STEPS = 100;
+		PodWorld world = new PodWorld(5);
+		SimpleController c = new SimpleController();
+		BatchPodWorld batch = new BatchPodWorld(world, PODS);
+
+		PodInfo[] pods = new PodInfo[PODS];
+		for(int i=0; i<PODS; i++) {
+			PodInfo pod = new PodInfo();
+			pod.pos = new Vec(1000 + i*500, 2000 + i*200);
+			pod.vel = Vec.UNIT.rotate(i).times(i*30);
+			pod.angle = PodWorld.inRange(i * 0.7);
+			pod.nextCheck = i % world.getCheckpoints().size();
+			pods[i] = pod;
+			batch.setPod(i, pod);
+		}
+
+		for(int s=0; s<STEPS; s++) {
+			for(int i=0; i<PODS; i++) {
+				PlayOutput play = c.play(pods[i].buildPlayInfo(world.getCheckpoints()));
+				batch.setPlay(i, play);
+				pods[i] = world.stepTest(pods[i], play);
+			}
+			batch.step();
+
+			for(int i=0; i<PODS; i++) {
+				PodInfo expected = pods[i], actual = batch.getPod(i);
+				assertEquals(expected.pos.x, actual.pos.x, 0);
+				assertEquals(expected.pos.y, actual.pos.y, 0);
+				assertEquals(expected.vel.x, actual.vel.x, 0);
+				assertEquals(expected.vel.y, actual.vel.y, 0);
+				assertEquals(expected.angle, actual.angle, 0);
+				assertEquals(expected.nextCheck, actual.nextCheck);
+				assertEquals(expected.laps, actual.laps);
+			}
+		}
+	}
+
+	@Test
+	public void testReset() {
+		PodWorld world = new PodWorld(4);
+		BatchPodWorld batch = new BatchPodWorld(world, 3);
+		Vec home = world.getCheckpoints().get(3);
+		PlayOutput play = new PlayOutput();
+		play.setDir(world.getCheckpoints().get(0));
+		play.setThrust(100);
+		for(int i=0; i<batch.size(); i++)
+			batch.setPlay(i, play);
+
+		batch.step();
+		assertNotEquals(home, batch.getPod(1).pos);
+
+		batch.reset();
+		for(int i=0; i<batch.size(); i++) {
+			assertEquals(home, batch.getPod(i).pos);
+			assertEquals(Vec.ORIGIN, batch.getPod(i).vel);
+		}
+	}
+}
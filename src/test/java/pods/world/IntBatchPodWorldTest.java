@@ -0,0 +1,86 @@
+package pods.world;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import pods.controller.PlayOutput;
+import pods.controller.SimpleController;
+import util.Vec;
+
+public class IntBatchPodWorldTest {
+	@Test
+	public void roundsLikeTheGame() {
+		IntBatchPodWorld batch = new IntBatchPodWorld(Arrays.asList(new Vec(9000, 1000), new Vec(1000, 1000)), 1);
+		batch.targetX[0] = 9000;
+		batch.targetY[0] = 1000;
+		batch.thrust[0] = 100;
+
+		batch.step();
+		assertEquals(1100, batch.posX[0]);
+		assertEquals(85, batch.velX[0]);
+
+		batch.step();
+		// 85 + 100 = 185, then 185 * 0.85 = 157.25
+		assertEquals(1285, batch.posX[0]);
+		assertEquals(157, batch.velX[0]);
+
+		// Speeds are truncated toward 0
+		batch.targetX[0] = 0;
+		batch.thrust[0] = 0;
+		batch.velX[0] = -101;
+		batch.step();
+		assertEquals(1184, batch.posX[0]);
+		assertEquals(-85, batch.velX[0]);
+	}
+
+	@Test
+	public void staysCloseToDoubleEngine() {
+		final int PODS = 10, STEPS = 20;
+		PodWorld world = new PodWorld(Arrays.asList(new Vec(3000, 2000), new Vec(12000, 7000), new Vec(8000, 4500)));
+		SimpleController c = new SimpleController();
+		IntBatchPodWorld batch = new IntBatchPodWorld(world, PODS);
+		BatchPodWorld exact = new BatchPodWorld(world, PODS);
+
+		for(int s=0; s<STEPS; s++) {
+			for(int i=0; i<PODS; i++) {
+				PlayOutput play = c.play(exact.getPod(i).buildPlayInfo(world.getCheckpoints()));
+				play.setThrust(play.getThrust() * (i+1) / PODS);
+				exact.setPlay(i, play);
+				batch.setPlay(i, play);
+			}
+			exact.step();
+			batch.step();
+		}
+
+		// Truncating the speed loses less than 1 per turn, which adds up to less than 1/(1-FRICTION) of lag per turn
+		for(int i=0; i<PODS; i++) {
+			assertEquals(exact.posX[i], batch.posX[i], 7*STEPS);
+			assertEquals(exact.posY[i], batch.posY[i], 7*STEPS);
+			assertEquals(exact.nextCheck[i], batch.nextCheck[i]);
+		}
+	}
+
+	@Test
+	public void deterministic() {
+		PodWorld world = new PodWorld(5);
+		IntBatchPodWorld a = new IntBatchPodWorld(world, 8), b = new IntBatchPodWorld(world, 8);
+		for(int s=0; s<200; s++) {
+			for(int i=0; i<8; i++) {
+				int check = a.nextCheck[i];
+				a.targetX[i] = b.targetX[i] = a.checkX(check) + 300*i;
+				a.targetY[i] = b.targetY[i] = a.checkY(check) - 200*i;
+				a.thrust[i] = b.thrust[i] = 20 + 10*i;
+			}
+			a.step();
+			b.step();
+		}
+		assertArrayEquals(a.posX, b.posX);
+		assertArrayEquals(a.posY, b.posY);
+		assertArrayEquals(a.velX, b.velX);
+		assertArrayEquals(a.velY, b.velY);
+		assertArrayEquals(a.laps, b.laps);
+	}
+}
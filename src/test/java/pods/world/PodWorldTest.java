@@ -2,9 +2,13 @@ package pods.world;
 
 import static org.junit.Assert.*;
 
+import java.util.Arrays;
+
 import org.junit.Assert;
 import org.junit.Test;
 
+import pods.controller.PlayInput;
+import pods.controller.PlayOutput;
 import pods.controller.SimpleController;
 import pods.world.PodWorld;
 import util.Vec;
@@ -27,6 +31,26 @@ public class PodWorldTest {
 		}
 	}
 	
+	@Test
+	public void podFromPlayInput() {
+		PodWorld world = new PodWorld(4);
+		PodInfo pod = new PodInfo();
+		pod.pos = new Vec(1234.7, 5678.2);
+		pod.vel = new Vec(-310.5, 42.25);
+		pod.angle = 2.5;
+		pod.nextCheck = 2;
+		pod.laps = 1;
+		PlayInput pi = new PlayInput();
+		pod.fillPlayInput(pi, world.getGeometry());
+		
+		PodInfo back = PodInfo.fromPlayInput(pi);
+		assertEquals(new Vec(1234, 5678), back.pos);
+		assertEquals(pod.vel, back.vel);
+		assertEquals(pod.angle, back.angle, 0);
+		assertEquals(pod.nextCheck, back.nextCheck);
+		assertEquals(pod.laps, back.laps);
+	}
+	
 	@Test
 	public void checkpointCreationTest() {
 		for(int i=0; i<10; i++) {
@@ -88,4 +112,148 @@ public class PodWorldTest {
 		assertEquals(pod.pos, stepped.pos);
 		assertEquals(pod.vel, stepped.vel);
 	}
+	
+	@Test
+	public void collisionTest() {
+		PodInfo a = new PodInfo(), b = new PodInfo();
+		a.pos = new Vec(5000, 5000);
+		a.vel = new Vec(300, 0);
+		b.pos = new Vec(5700, 5000);
+		b.vel = new Vec(-100, 50);
+		Vec momentum = a.vel.plus(b.vel);
+		
+		assertTrue(PodWorld.collide(a, b));
+		assertEquals(momentum, a.vel.plus(b.vel));
+		assertTrue(a.vel.x < 0);
+		assertTrue(b.vel.x > 0);
+		assertEquals(2*PodWorld.POD_RADIUS, b.pos.minus(a.pos).norm(), 0.000001);
+		
+		// Now they are moving apart, so there is no more collision
+		assertFalse(PodWorld.collide(a, b));
+	}
+	
+	@Test
+	public void minimumImpulseTest() {
+		PodInfo a = new PodInfo(), b = new PodInfo();
+		a.pos = new Vec(5000, 5000);
+		a.vel = new Vec(10, 0);
+		b.pos = new Vec(5500, 5000);
+		
+		assertTrue(PodWorld.collide(a, b));
+		assertEquals(new Vec(10, 0), a.vel.plus(b.vel));
+		assertTrue(b.vel.x >= PodWorld.MIN_IMPULSE);
+	}
+	
+	@Test
+	public void podsCollideInStep() {
+		PodWorld p = new PodWorld(Arrays.asList(new Vec(2000, 4500), new Vec(14000, 4500)));
+		p.addPlayer(new SimpleController());
+		p.addPlayer(new SimpleController());
+		PodInfo a = p.getPods().get(0), b = p.getPods().get(1);
+		a.pos = new Vec(5000, 4500);
+		a.angle = 0;
+		b.pos = new Vec(5900, 4500);
+		b.vel = new Vec(-200, 0);
+		
+		p.step();
+		assertTrue(b.pos.x - a.pos.x >= 2*PodWorld.POD_RADIUS - 0.000001);
+		assertTrue(b.vel.x > 0);
+	}
+	
+	@Test
+	public void advanceTest() {
+		PodWorld p = new PodWorld(Arrays.asList(new Vec(6000, 4200), new Vec(9000, 4500), new Vec(12000, 4700), new Vec(2000, 4000)));
+		for(int turns=1; turns<40; turns++) {
+			PodInfo pod = new PodInfo();
+			pod.pos = new Vec(2000, 4000);
+			pod.vel = new Vec(100, 20);
+			pod.angle = 0.05;
+			PlayOutput play = new PlayOutput();
+			play.setDir(new Vec(9000, 4000));
+			play.setThrust(80);
+			
+			PodInfo advanced = p.advance(pod, play, turns);
+			
+			// Step the same thing turn by turn: aim straight ahead after the first turn
+			PodInfo stepped = p.stepTest(pod, play);
+			for(int i=1; i<turns; i++) {
+				PlayOutput ahead = new PlayOutput();
+				ahead.setDir(stepped.pos.plus(Vec.UNIT.rotate(stepped.angle).times(1000000)));
+				ahead.setThrust(80);
+				stepped = p.stepTest(stepped, ahead);
+			}
+			
+			assertEquals(stepped.angle, advanced.angle, 0.0001);
+			assertEquals(stepped.pos.x, advanced.pos.x, 1);
+			assertEquals(stepped.pos.y, advanced.pos.y, 1);
+			assertEquals(stepped.vel.x, advanced.vel.x, 0.1);
+			assertEquals(stepped.vel.y, advanced.vel.y, 0.1);
+			assertEquals("After " + turns + " turns", stepped.nextCheck, advanced.nextCheck);
+			assertEquals(stepped.laps, advanced.laps);
+		}
+	}
+	
+	@Test
+	public void directStepTest() {
+		PodWorld p = new PodWorld(4);
+		PodInfo direct = new PodInfo(), target = new PodInfo();
+		direct.pos = target.pos = new Vec(5000, 5000);
+		direct.vel = target.vel = new Vec(-200, 100);
+		direct.angle = target.angle = 2.5;
+		
+		double[] deltas = {PodWorld.MAX_TURN, -PodWorld.MAX_TURN, 0, 0.1, 1, -1};
+		for(int i=0; i<30; i++) {
+			double delta = deltas[i % deltas.length];
+			PlayOutput play = new PlayOutput();
+			play.setDir(target.pos.plus(Vec.UNIT.rotate(target.angle + delta).times(1000000)));
+			play.setThrust(70);
+			target = p.stepTest(target, play);
+			direct = p.stepTest(direct, delta, 70);
+			
+			assertEquals(target.angle, direct.angle, 0.0001);
+			assertEquals(Math.cos(direct.angle), direct.headingX(), 0.000001);
+			assertEquals(Math.sin(direct.angle), direct.headingY(), 0.000001);
+			assertEquals(target.pos.x, direct.pos.x, 0.5);
+			assertEquals(target.pos.y, direct.pos.y, 0.5);
+			assertEquals(target.nextCheck, direct.nextCheck);
+		}
+	}
+	
+	@Test
+	public void snapshotTest() {
+		PodWorld p = new PodWorld();
+		p.addPlayer(new SimpleController());
+		p.addPlayer(new SimpleController());
+		for(int i=0; i<5; i++)
+			p.step();
+		
+		PodWorld.Snapshot snap = p.snapshot();
+		assertEquals(2, snap.size());
+		PodInfo pod = p.getPods().get(1);
+		Vec pos = pod.pos, vel = pod.vel;
+		double angle = pod.angle;
+		
+		PodWorld.Snapshot after = null;
+		for(int j=0; j<3; j++) {
+			for(int i=0; i<10; i++)
+				p.step();
+			after = p.snapshot(after == null ? new PodWorld.Snapshot() : after);
+			assertNotEquals(pos, pod.pos);
+			
+			p.restore(snap);
+			assertSame(pod, p.getPods().get(1));
+			assertEquals(pos, pod.pos);
+			assertEquals(vel, pod.vel);
+			assertEquals(angle, pod.angle, 0);
+		}
+		
+		// Replaying from the snapshot gives the same result
+		for(int i=0; i<10; i++)
+			p.step();
+		PodWorld.Snapshot replay = p.snapshot();
+		p.restore(after);
+		Vec afterPos = pod.pos;
+		p.restore(replay);
+		assertEquals(afterPos, pod.pos);
+	}
 }
@@ -0,0 +1,113 @@
+package pods.world;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import pods.controller.Controller;
+import pods.controller.ControllerFactory;
+import pods.controller.PlayInput;
+import pods.controller.PlayOutput;
+import pods.controller.SimpleController;
+import util.RandomSource;
+import util.Vec;
+
+public class RaceRunnerTest {
+	private static final ControllerFactory SIMPLE = new ControllerFactory() {
+		public Controller build(PodWorld world) {
+			return new SimpleController();
+		}
+	};
+	
+	/**
+	 * Never moves, so it never finishes a race.
+	 */
+	private static final ControllerFactory IDLE = new ControllerFactory() {
+		public Controller build(PodWorld world) {
+			return new Controller() {
+				public PlayOutput play(PlayInput pi) {
+					PlayOutput play = new PlayOutput();
+					play.setDir(pi.nextCheck);
+					play.setThrust(0);
+					return play;
+				}
+			};
+		}
+	};
+
+	@Test
+	public void testRun() {
+		RandomSource.setRunSeed(7);
+		List<List<Vec>> tracks = new ArrayList<List<Vec>>();
+		for(int i=0; i<20; i++)
+			tracks.add(new PodWorld().getCheckpoints());
+		
+		Map<String, ControllerFactory> factories = new LinkedHashMap<String, ControllerFactory>();
+		factories.put("simple", SIMPLE);
+		factories.put("idle", IDLE);
+		
+		RaceRunner runner = new RaceRunner(tracks, 2, 500, new ForkJoinPool(3));
+		RaceRunner.Report report = runner.run(factories);
+		
+		RaceRunner.RaceStats simple = report.stats.get("simple");
+		assertEquals(20, simple.races());
+		assertTrue(simple.finished() > 0);
+		assertTrue(simple.percentile(50) <= simple.percentile(90));
+		assertTrue(simple.percentile(0) > 0);
+		
+		RaceRunner.RaceStats idle = report.stats.get("idle");
+		assertEquals(0, idle.finished());
+		assertEquals(-1, idle.percentile(50));
+		
+		assertTrue(report.totalTurns >= 20*500);
+		assertTrue(report.turnsPerSecond() > 0);
+		
+		// Same races, same results
+		RaceRunner.Report again = runner.run(factories);
+		assertEquals(report.totalTurns, again.totalTurns);
+		assertEquals(simple.mean(), again.stats.get("simple").mean(), 0);
+	}
+
+	@Test
+	public void finishedOnTheLastTurn() {
+		List<List<Vec>> tracks = new ArrayList<List<Vec>>();
+		tracks.add(new PodWorld(new RandomSource(3)).getCheckpoints());
+		Map<String, ControllerFactory> factories = new LinkedHashMap<String, ControllerFactory>();
+		factories.put("simple", SIMPLE);
+		int turns = new RaceRunner(tracks, 1, 1000, new ForkJoinPool(1)).run(factories).stats.get("simple").percentile(100);
+		assertTrue(turns > 0);
+		
+		// A race finished on the last turn allowed counts as finished
+		RaceRunner.RaceStats exact = new RaceRunner(tracks, 1, turns, new ForkJoinPool(1)).run(factories).stats.get("simple");
+		assertEquals(1, exact.finished());
+		assertEquals(turns, exact.percentile(100));
+		
+		RaceRunner.RaceStats cut = new RaceRunner(tracks, 1, turns - 1, new ForkJoinPool(1)).run(factories).stats.get("simple");
+		assertEquals(0, cut.finished());
+	}
+
+	@Test
+	public void timedRun() {
+		List<List<Vec>> tracks = new ArrayList<List<Vec>>();
+		for(int i=0; i<4; i++)
+			tracks.add(new PodWorld(new RandomSource(i)).getCheckpoints());
+		Map<String, ControllerFactory> factories = new LinkedHashMap<String, ControllerFactory>();
+		factories.put("simple", SIMPLE);
+		
+		RaceRunner runner = new RaceRunner(tracks, 1, 300, new ForkJoinPool(2));
+		// Every turn is over a budget of 0ns... except that 0 means "not timed", so use 1ns
+		runner.setTurnBudget(1);
+		RaceRunner.Report report = runner.run(factories);
+		RaceRunner.RaceStats simple = report.stats.get("simple");
+		assertEquals(report.totalTurns, simple.latency().count());
+		assertTrue(simple.overBudget() <= simple.latency().count());
+		assertTrue(simple.latency().percentile(50) <= simple.latency().percentile(99));
+		assertTrue(simple.toString().contains("turn time"));
+	}
+}
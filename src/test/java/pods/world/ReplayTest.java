@@ -0,0 +1,73 @@
+package pods.world;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import pods.controller.PlayOutput;
+import pods.controller.SimpleController;
+import util.Vec;
+
+public class ReplayTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void recordAndRead() throws Exception {
+		final int TURNS = 250;
+		PodWorld world = new PodWorld(4);
+		world.addPlayer(new SimpleController());
+		world.addPlayer(new SimpleController());
+		world.getPods().get(1).pos = world.getCheckpoints().get(1);
+
+		File file = folder.newFile("race.replay");
+		List<Vec> positions = new ArrayList<Vec>(), velocities = new ArrayList<Vec>();
+		List<Double> angles = new ArrayList<Double>();
+		List<PlayOutput> plays = new ArrayList<PlayOutput>();
+		// Small chunks, so that the replay spans several of them
+		ReplayRecorder recorder = new ReplayRecorder(file.toPath(), world, 1000);
+		world.setRecorder(recorder);
+		for(int i=0; i<TURNS; i++) {
+			world.step();
+			PodInfo pod = world.getPods().get(1);
+			positions.add(pod.pos);
+			velocities.add(pod.vel);
+			angles.add(pod.angle);
+			// The world reuses its PlayOutputs, so keep a copy
+			PlayOutput play = new PlayOutput();
+			play.set(world.getLastPlay(1));
+			plays.add(play);
+		}
+		assertEquals(TURNS, recorder.turns());
+		recorder.close();
+		assertEquals(ReplayRecorder.headerSize(4) + TURNS * 2 * ReplayRecorder.POD_RECORD_SIZE, file.length());
+
+		ReplayReader reader = new ReplayReader(file.toPath());
+		assertEquals(2, reader.numPods());
+		assertEquals(TURNS, reader.turns());
+		assertEquals(world.getCheckpoints(), reader.getCheckpoints());
+
+		for(int turn : new int[] {TURNS-1, 0, 17, 16, 123, 200}) {
+			PodInfo pod = reader.getPod(turn, 1);
+			assertEquals(positions.get(turn), pod.pos);
+			assertEquals(velocities.get(turn), pod.vel);
+			assertEquals(angles.get(turn), pod.angle, 0);
+
+			PlayOutput play = reader.getPlay(turn, 1);
+			assertEquals(plays.get(turn).getDir(), play.getDir());
+			assertEquals(plays.get(turn).getThrust(), play.getThrust());
+		}
+		reader.close();
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void worldWithoutPodsIsRejected() throws Exception {
+		new ReplayRecorder(folder.newFile("empty.replay").toPath(), new PodWorld(4));
+	}
+}
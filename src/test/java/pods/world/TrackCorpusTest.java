@@ -0,0 +1,83 @@
+package pods.world;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import util.RandomSource;
+import util.Vec;
+
+public class TrackCorpusTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void generatedTracksAreValid() {
+		TrackCorpus corpus = TrackGenerator.generate(500, new RandomSource(1), new ForkJoinPool(4));
+		assertTrue(corpus.size() > 490);
+		for(List<Vec> track : corpus) {
+			assertTrue(track.size() >= PodWorld.MIN_CHECKS && track.size() < PodWorld.MAX_CHECKS);
+			for(int i=0; i<track.size(); i++) {
+				Vec check = track.get(i);
+				assertTrue(check.x >= PodWorld.BORDER_PADDING && PodWorld.WORLD_X - check.x >= PodWorld.BORDER_PADDING);
+				assertTrue(check.y >= PodWorld.BORDER_PADDING && PodWorld.WORLD_Y - check.y >= PodWorld.BORDER_PADDING);
+				for(int j=0; j<i; j++)
+					assertTrue(check.minus(track.get(j)).norm2() >= PodWorld.CHECK_SPACING*PodWorld.CHECK_SPACING);
+			}
+		}
+	}
+
+	@Test
+	public void generationIsDeterministic() {
+		TrackCorpus a = TrackGenerator.generate(3000, new RandomSource(7), new ForkJoinPool(1));
+		TrackCorpus b = TrackGenerator.generate(3000, new RandomSource(7), new ForkJoinPool(4));
+		assertEquals(a.size(), b.size());
+		for(int i=0; i<a.size(); i++)
+			assertEquals(a.get(i), b.get(i));
+	}
+
+	@Test
+	public void duplicatesAreIgnored() {
+		TrackCorpus corpus = new TrackCorpus();
+		List<Vec> track = Arrays.asList(new Vec(2000, 2000), new Vec(8000, 5000));
+		assertTrue(corpus.addIfAbsent(track));
+		assertFalse(corpus.addIfAbsent(Arrays.asList(new Vec(2000.5, 2000.2), new Vec(8000, 5000))));
+		assertTrue(corpus.addIfAbsent(Arrays.asList(new Vec(8000, 5000), new Vec(2000, 2000))));
+		assertEquals(2, corpus.size());
+		assertEquals(track, corpus.get(0));
+	}
+
+	@Test
+	public void addAppendsDuplicates() {
+		TrackCorpus corpus = new TrackCorpus();
+		List<Vec> track = Arrays.asList(new Vec(2000, 2000), new Vec(8000, 5000));
+		for(int i=0; i<40; i++)
+			assertTrue(corpus.add(track));
+		assertEquals(40, corpus.size());
+		assertEquals(track, corpus.get(39));
+		assertFalse(corpus.addIfAbsent(track));
+		assertEquals(40, corpus.size());
+		assertEquals(1, new TrackCorpus(corpus).size());
+	}
+
+	@Test
+	public void saveAndLoad() throws IOException {
+		TrackCorpus corpus = TrackGenerator.generate(100, new RandomSource(3), ForkJoinPool.commonPool());
+		Path file = folder.newFile("tracks.bin").toPath();
+		corpus.save(file);
+
+		TrackCorpus loaded = TrackCorpus.load(file);
+		assertEquals(corpus.size(), loaded.size());
+		for(int i=0; i<corpus.size(); i++)
+			assertEquals(corpus.toWorld(i).getCheckpoints(), loaded.toWorld(i).getCheckpoints());
+		assertFalse(loaded.addIfAbsent(corpus.get(42)));
+	}
+}
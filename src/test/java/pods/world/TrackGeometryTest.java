@@ -0,0 +1,50 @@
+package pods.world;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import pods.controller.SimpleController;
+import util.Vec;
+
+public class TrackGeometryTest {
+	private static final double EPS = 1e-9;
+
+	@Test
+	public void squareTrack() {
+		TrackGeometry g = new TrackGeometry(Arrays.asList(
+				new Vec(5000, 2000), new Vec(8000, 2000), new Vec(8000, 5000), new Vec(5000, 5000)));
+
+		assertEquals(4, g.numChecks());
+		assertEquals(3000, g.legX(0), EPS);
+		assertEquals(0, g.legY(0), EPS);
+		assertEquals(3000, g.legLength(3), EPS);
+		assertEquals(0, g.legDirX(3), EPS);
+		assertEquals(-1, g.legDirY(3), EPS);
+		assertEquals(12000, g.lapLength(), EPS);
+
+		assertEquals(9000, g.toLapEnd(0), EPS);
+		assertEquals(3000, g.toLapEnd(2), EPS);
+		assertEquals(0, g.toLapEnd(3), EPS);
+		assertEquals(9000 + 2*12000, g.toFinish(0, 2), EPS);
+
+		for(int i=0; i<4; i++)
+			assertEquals(Math.PI / 2, g.turnAngle(i), EPS);
+		assertEquals(0, g.following(3));
+	}
+
+	@Test
+	public void scoreMatchesVectorMath() {
+		PodWorld world = new PodWorld(5);
+		world.addPlayer(new SimpleController());
+		PodInfo pod = world.getPods().get(0);
+		for(int i=0; i<50; i++) {
+			world.step();
+			Vec toCheck = world.getCheckpoints().get(pod.nextCheck).minus(pod.pos);
+			double expected = (toCheck.x*Math.cos(pod.angle) + toCheck.y*Math.sin(pod.angle)) / toCheck.norm() * 200.;
+			assertEquals(expected, pod.dirBonus(world), 1e-6);
+		}
+	}
+}
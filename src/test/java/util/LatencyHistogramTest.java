@@ -0,0 +1,49 @@
+package util;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+	@Test
+	public void smallValuesAreExact() {
+		LatencyHistogram h = new LatencyHistogram();
+		for(int i=1; i<=100; i++)
+			h.record(i);
+		assertEquals(100, h.count());
+		assertEquals(50, h.percentile(50));
+		assertEquals(99, h.percentile(99));
+		assertEquals(100, h.percentile(100));
+		assertEquals(1, h.min());
+		assertEquals(50.5, h.mean(), 0);
+		assertEquals(10, h.countAbove(90));
+	}
+
+	@Test
+	public void largeValuesWithinPrecision() {
+		LatencyHistogram h = new LatencyHistogram();
+		for(long v = 1000; v < 100000000L; v = v * 11 / 10) {
+			h.reset();
+			h.record(v);
+			h.record(2*v);
+			long p = h.percentile(50);
+			assertTrue(v + " -> " + p, p >= v && p <= v + v / 64);
+			assertEquals(2*v, h.percentile(100));
+		}
+	}
+
+	@Test
+	public void addHistograms() {
+		LatencyHistogram a = new LatencyHistogram(), b = new LatencyHistogram();
+		for(int i=0; i<90; i++)
+			a.record(1000);
+		for(int i=0; i<10; i++)
+			b.record(5000000);
+		a.add(b);
+		assertEquals(100, a.count());
+		assertTrue(a.percentile(90) < 1100);
+		assertTrue(a.percentile(91) >= 5000000);
+		assertEquals(5000000, a.max());
+		assertEquals(10, a.countAbove(1000000));
+	}
+}
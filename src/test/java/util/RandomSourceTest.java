@@ -0,0 +1,51 @@
+package util;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import pods.world.PodWorld;
+
+public class RandomSourceTest {
+	@Test
+	public void sameSeedSameValues() {
+		RandomSource a = new RandomSource(42), b = new RandomSource(42);
+		for(int i=0; i<100; i++)
+			assertEquals(a.nextLong(), b.nextLong());
+	}
+
+	@Test
+	public void splitIsReproducible() {
+		RandomSource a = new RandomSource(42).split(), b = new RandomSource(42).split();
+		for(int i=0; i<100; i++)
+			assertEquals(a.nextDouble(), b.nextDouble(), 0);
+	}
+
+	@Test
+	public void runSeedIsReproducible() {
+		RandomSource.setRunSeed(1234);
+		Matrix m1 = Matrix.random(5, 5, 1);
+		PodWorld w1 = new PodWorld();
+
+		RandomSource.setRunSeed(1234);
+		Matrix m2 = Matrix.random(5, 5, 1);
+		PodWorld w2 = new PodWorld();
+
+		assertEquals(m1, m2);
+		assertEquals(w1.getCheckpoints(), w2.getCheckpoints());
+	}
+
+	@Test
+	public void threadsHaveTheirOwnSource() throws InterruptedException {
+		final RandomSource[] other = new RandomSource[1];
+		Thread t = new Thread(new Runnable() {
+			public void run() {
+				other[0] = RandomSource.current();
+			}
+		});
+		t.start();
+		t.join();
+		assertNotNull(other[0]);
+		assertNotSame(RandomSource.current(), other[0]);
+	}
+}